@@ -3,25 +3,27 @@
  */
 public abstract class AFoodSpace extends ASpace {
   /**
-   * Constructs a {@code AFoodSpace}.
-   *
-   * @param hiX   the upper-bound of the x-position
-   * @param hiY   the upper-bound of the y-position
+   * Constructs a {@code AFoodSpace}. Its position is assigned when it is
+   * added to a {@code Board}.
    */
   public AFoodSpace() {
     super(0, 0);
-    randomSpace(snake.BOARD_SIZE, snake.BOARD_SIZE);
   }
 
   /**
-   * Assigns this {@code AFoodSpace} a random position on the grid.
+   * Assigns this {@code AFoodSpace} a random free position on the given board.
    *
-   * @param hiX   the upper-bound of the x-position
-   * @param hiY   the upper-bound of the y-position
+   * @param board   the board to place this food on
+   * @return true if a free position was found, false if the board is full
    */
-  public void randomSpace(int hiX, int hiY) {
-    this.x = int(random(hiX));
-    this.y = int(random(hiY));
+  public boolean randomSpace(Board board) {
+    int cell = board.randomFreeCell();
+    if (cell < 0) {
+      return false;
+    }
+    this.x = board.cellX(cell);
+    this.y = board.cellY(cell);
+    return true;
   }
 
   @Override
@@ -30,16 +32,23 @@ public abstract class AFoodSpace extends ASpace {
   }
 
   /**
-   * Mutates the list based on the effect of this {@code AFoodSpace}.
+   * Returns the type of this food.
+   *
+   * @return the FoodType representation of this food
+   */
+  public abstract FoodType getType();
+
+  /**
+   * Mutates the snake and board based on the effect of this {@code AFoodSpace}.
    *
-   * @param snake       a list of {@code SnakeSpace}s representing a snake
-   * @param foods       a list of {@code FoodSpace}s currently on the map
+   * @param snake       the {@code SnakeBody} of the snake
+   * @param board       the {@code Board} holding the foods currently on the map
    * @param ate         the last type of food the snake has eaten
    * @param hiX         the upper-bound of the x-position
    * @param hiY         the upper-bound of the y-position
-   * @throws IllegalArgumentException if given snake list is null or size 0, or if foods list is null
+   * @throws IllegalArgumentException if given snake is null or size 0, or if board is null
    * @return the FoodType representation of this food
    */
-  public abstract FoodType eatEffect(ArrayList<SnakeSpace> snake, ArrayList<AFoodSpace> foods, FoodType ate,
+  public abstract FoodType eatEffect(SnakeBody snake, Board board, FoodType ate,
                                  int hiX, int hiY) throws IllegalArgumentException;
-}
+}
\ No newline at end of file
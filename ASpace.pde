@@ -45,6 +45,17 @@ public abstract class ASpace {
     return this.x == other.x && this.y == other.y;
   }
   
+  /**
+   * Moves this {@code ASpace} to the given position.
+   *
+   * @param x     the x-position
+   * @param y     the y-position
+   */
+  public void moveTo(int x, int y) {
+    this.x = x;
+    this.y = y;
+  }
+  
   /**
    * Returns the color of this {@code ASpace}.
    *
@@ -58,9 +69,18 @@ public abstract class ASpace {
    * Draws the space on the grid.
    */
   public void drawSpace() {
-    noStroke();
-    fill(getColor());
-    rect(this.x * spaceSize, this.y * spaceSize,
-         spaceSize, spaceSize);
+    drawSpace(g);
+  }
+  
+  /**
+   * Draws the space on the grid of the given graphics.
+   *
+   * @param pg     the graphics to draw on
+   */
+  public void drawSpace(PGraphics pg) {
+    pg.noStroke();
+    pg.fill(getColor());
+    pg.rect(this.x * spaceSize, this.y * spaceSize,
+            spaceSize, spaceSize);
   }
 }
\ No newline at end of file
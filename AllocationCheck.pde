@@ -0,0 +1,114 @@
+/**
+ * Checks that the playing loop doesn't allocate once warmed up. Each seeded game
+ * is played once by a bot to grow every buffer and pool it needs, then reset and
+ * played again with the same seed, counting the bytes allocated by every frame.
+ * A frame is a tick, the snapshot of it, and drawing the snapshot with a
+ * {@code SnakeView} onto an off-screen graphics the size of the window. The
+ * profiler is on throughout, so its timing and overlay are counted as well.
+ *
+ * The JIT compiler swapping in newly compiled code can allocate a few bytes on
+ * the playing thread once, at no particular frame, so a game with a frame over
+ * the budget is played once more and only fails the check if it goes over again.
+ * Drawing needs the sketch's renderer, so the check can only run from setup() on.
+ */
+public class AllocationCheck {
+  private static final int SCREEN_SIZE = 1000;
+
+  private final AllocationCounter counter = new AllocationCounter();
+  private final AllocationCounter results = new AllocationCounter();
+  private final int boardSize;
+  private final int maxTicks;
+  private final long budget;
+  private final BoardSnapshot snapshot;
+  private final ChangeLog changes = new ChangeLog(1 << 14);
+  private final Profiler profiler = new Profiler();
+  private PGraphics screen;
+  private SnakeView view;
+
+  /**
+   * Constructs an {@code AllocationCheck}.
+   *
+   * @param boardSize   the number of spaces across and down the board
+   * @param maxTicks    the most ticks a single game may run for
+   * @param budget      the most bytes a single frame may allocate
+   */
+  public AllocationCheck(int boardSize, int maxTicks, long budget) {
+    this.boardSize = boardSize;
+    this.maxTicks = maxTicks;
+    this.budget = budget;
+    this.snapshot = new BoardSnapshot(boardSize, boardSize);
+    profiler.setEnabled(true);
+  }
+
+  /**
+   * Plays the given number of games, seeded one after another from the first seed.
+   * Every game is played through once before any are counted, so that the buffers
+   * have grown and the JIT compiler has settled by the time they are replayed.
+   *
+   * @param firstSeed   the seed of the first game
+   * @param games       the number of games to play
+   * @return the counter holding the bytes allocated per frame of the games that passed
+   * @throws IllegalStateException if any game had a frame over the budget both times
+   *                               it was counted
+   */
+  public AllocationCounter run(long firstSeed, int games) throws IllegalStateException {
+    Random botRng = new Random();
+    SnakeEngine[] engines = new SnakeEngine[games];
+    if (view == null) {
+      screen = createGraphics(SCREEN_SIZE, SCREEN_SIZE);
+      spaceSize = SCREEN_SIZE / boardSize;
+      view = new SnakeView(new Board(boardSize, boardSize, botRng), screen);
+      view.setProfiler(profiler);
+    }
+    for (int i = 0; i < games; i++) {
+      botRng.setSeed(~(firstSeed + i));
+      engines[i] = new SnakeEngine(boardSize, firstSeed + i, new BotInput(botRng));
+      engines[i].setProfiler(profiler);
+      play(engines[i], false);
+    }
+    results.reset();
+    for (int i = 0; i < games; i++) {
+      for (int attempt = 0; ; attempt++) {
+        botRng.setSeed(~(firstSeed + i));
+        engines[i].reset(firstSeed + i);
+        counter.reset();
+        try {
+          play(engines[i], true);
+          break;
+        } catch (IllegalStateException e) {
+          if (attempt > 0) {
+            throw new IllegalStateException("Game " + (firstSeed + i) + ", tick "
+                + engines[i].getTicks() + ": " + e.getMessage());
+          }
+        }
+      }
+      results.add(counter);
+    }
+    return results;
+  }
+
+  /**
+   * Plays the given game until it is over or runs out of ticks, counting the
+   * allocations of every frame. Warm-up games count too, so that the counting
+   * itself is compiled the same way in both passes.
+   *
+   * @param engine    the game to play
+   * @param check     true to check every frame against the budget, false otherwise
+   * @throws IllegalStateException if a checked frame allocated more than the budget
+   */
+  private void play(SnakeEngine engine, boolean check) throws IllegalStateException {
+    while (!engine.isOver() && engine.getTicks() < maxTicks) {
+      counter.begin();
+      engine.tick();
+      changes.record(engine.getBoard());
+      snapshot.capture(engine, 1, changes, snapshot.getSeq());
+      screen.beginDraw();
+      view.display(GameState.PLAYING, snapshot, 1);
+      screen.endDraw();
+      counter.end();
+      if (check) {
+        counter.checkBudget(budget);
+      }
+    }
+  }
+}
\ No newline at end of file
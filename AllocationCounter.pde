@@ -0,0 +1,105 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes allocated by the current thread between calls to begin() and
+ * end(), such as over one frame or tick, using the JVM's per-thread allocation
+ * counter. The bytes the counter itself allocates are measured once and left out.
+ */
+public class AllocationCounter {
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final long overhead;
+  private long start;
+  private long last;
+  private long worst;
+  private long total;
+  private long count;
+
+  /**
+   * Constructs an {@code AllocationCounter}.
+   *
+   * @throws IllegalStateException if the JVM can't count allocations per thread
+   */
+  public AllocationCounter() throws IllegalStateException {
+    if (!threads.isThreadAllocatedMemorySupported()) {
+      throw new IllegalStateException("Allocation counting is not supported.");
+    }
+    threads.setThreadAllocatedMemoryEnabled(true);
+    long least = Long.MAX_VALUE;
+    for (int i = 0; i < 16; i++) {
+      long before = allocated();
+      least = Math.min(least, allocated() - before);
+    }
+    this.overhead = least;
+  }
+
+  /**
+   * Starts counting.
+   */
+  public void begin() {
+    start = allocated();
+  }
+
+  /**
+   * Stops counting, and records the bytes allocated since begin() was called.
+   *
+   * @return the bytes allocated
+   */
+  public long end() {
+    last = Math.max(0, allocated() - start - overhead);
+    worst = Math.max(worst, last);
+    total += last;
+    count++;
+    return last;
+  }
+
+  /**
+   * Checks that the last count stayed within the given budget.
+   *
+   * @param budget     the most bytes that may be allocated
+   * @throws IllegalStateException if more than the budget was allocated
+   */
+  public void checkBudget(long budget) throws IllegalStateException {
+    if (last > budget) {
+      throw new IllegalStateException("Allocated " + last + " bytes, over the budget of "
+          + budget + " bytes.");
+    }
+  }
+
+  public long getLast() {
+    return this.last;
+  }
+
+  public long getWorst() {
+    return this.worst;
+  }
+
+  public double getAverage() {
+    return count == 0 ? 0 : (double) total / count;
+  }
+
+  /**
+   * Adds the counts recorded by the given counter to this one's.
+   *
+   * @param other    the counter to add the counts of
+   */
+  public void add(AllocationCounter other) {
+    worst = Math.max(worst, other.worst);
+    total += other.total;
+    count += other.count;
+  }
+
+  /**
+   * Forgets all counts so far.
+   */
+  public void reset() {
+    last = 0;
+    worst = 0;
+    total = 0;
+    count = 0;
+  }
+
+  private long allocated() {
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+/**
+ * Measures how the ticks per second of an arena scale with the number of threads,
+ * from one up to every core. Every run plays the same seeded arena, so each one
+ * also checks that it ended in exactly the same state as the single threaded run.
+ */
+public class ArenaBenchmark {
+  private final int size;
+  private final int snakes;
+  private final int warmupTicks;
+  private final int ticks;
+
+  /**
+   * Constructs an {@code ArenaBenchmark}.
+   *
+   * @param size          the number of spaces across and down the board
+   * @param snakes        the number of snakes
+   * @param warmupTicks   the number of ticks to play before measuring
+   * @param ticks         the number of ticks to measure
+   * @throws IllegalArgumentException if any value is negative, or no ticks are measured
+   */
+  public ArenaBenchmark(int size, int snakes, int warmupTicks, int ticks) throws IllegalArgumentException {
+    if (warmupTicks < 0 || ticks <= 0) {
+      throw new IllegalArgumentException("Invalid benchmark settings.");
+    }
+    this.size = size;
+    this.snakes = snakes;
+    this.warmupTicks = warmupTicks;
+    this.ticks = ticks;
+  }
+
+  /**
+   * Runs the arena on 1, 2, 4 and so on threads, up to the number of cores.
+   */
+  public void runAll() {
+    int cores = Runtime.getRuntime().availableProcessors();
+    println(String.format("arena %dx%d, %d snakes, %d ticks", size, size, snakes, ticks));
+    println(String.format("%8s %12s %8s %8s %8s", "threads", "ticks/s", "speedup", "alive", "same"));
+    double base = 0;
+    long expected = 0;
+    for (int threads = 1; threads <= cores; threads = (threads == cores) ? cores + 1 : Math.min(threads * 2, cores)) {
+      ArenaEngine arena = new ArenaEngine(size, snakes, 1, threads);
+      for (int i = 0; i < warmupTicks; i++) {
+        arena.tick();
+      }
+      long start = System.nanoTime();
+      for (int i = 0; i < ticks; i++) {
+        arena.tick();
+      }
+      double rate = ticks / ((System.nanoTime() - start) / 1e9);
+      if (threads == 1) {
+        base = rate;
+        expected = arena.checksum();
+      }
+      println(String.format("%8d %12.0f %8.2f %8d %8s", threads, rate, rate / base,
+          arena.aliveCount(), (arena.checksum() == expected) ? "yes" : "NO"));
+      arena.shutdown();
+    }
+  }
+}
\ No newline at end of file
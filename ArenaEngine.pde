@@ -0,0 +1,500 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Represents an arena where many bot snakes play at once on one large board. The
+ * board is split into square regions, and each tick the snakes are grouped by the
+ * region their head is in so the regions can be worked on in parallel:
+ *   1. every moving snake picks its turn and claims the space it moves into,
+ *   2. every moving snake checks its claim against the board and the other claims,
+ *   3. the moves, deaths and food effects are applied one snake at a time, in id order.
+ * Claims only keep a count and whether a tail is leaving, so the outcome of a tick
+ * never depends on how the regions were scheduled, and a seeded arena always plays the same way
+ * however many threads it runs on.
+ *
+ * Two heads moving into the same space both die, and a head moving into any snake
+ * dies, unless that space is the tail of a snake that moves away on the same tick
+ * without leaving slime behind.
+ * Snakes move every third tick, every tick after eating a fast food and every ninth
+ * after a slow one. Food effects reuse the single player foods and apply to the
+ * snake that ate them, except explosions, which scatter food across the whole
+ * arena. Dead snakes come back on a random free space after a short wait.
+ */
+public class ArenaEngine {
+  public static final int MAX_SIZE = 4096;
+  private static final int SNAKES_PER_TASK = 32;
+  private static final int DECIDE = 0;
+  private static final int RESOLVE = 1;
+  private static final int TAIL = 1 << 30;
+  private static final int ONE_CLAIM = 1 << 28;
+
+  private final FoodType[] types = FoodType.values();
+  private int spawnTicks = 34;
+  private int despawnTicks = 315;
+  private int effectTicks = 270;
+  private int respawnTicks = 45;
+
+  private final int size;
+  private final int count;
+  private final int regionsAcross;
+  private final Random rng;
+  private final Board board;
+  private final ForkJoinPool pool;
+  private final AtomicIntegerArray claims;
+  private final SnakeBody[] snakes;
+  private final BotInput[] bots;
+  private final FoodType[] ate;
+  private final int[] effectEnd;
+  private final int[] respawnAt;
+  private final boolean[] alive;
+  private final boolean[] moving;
+  private final boolean[] dying;
+  private final int[] target;
+  private final int[] tail;
+  private final int[] regionStart;
+  private final int[] order;
+
+  private int ticks;
+  private int deaths;
+  private int eaten;
+
+  /**
+   * Constructs an {@code ArenaEngine}, with every snake placed on a random space.
+   *
+   * @param size          the number of spaces across and down the board
+   * @param count         the number of snakes
+   * @param seed          the seed for all randomness in the arena
+   * @param parallelism   the number of threads to work on regions with
+   * @throws IllegalArgumentException if the size is not between 1 and MAX_SIZE, or
+   *                                  there are more snakes than spaces, or the
+   *                                  parallelism is not positive
+   */
+  public ArenaEngine(int size, int count, long seed, int parallelism) throws IllegalArgumentException {
+    if (size <= 0 || size > MAX_SIZE || count <= 0 || count > size * size / 2
+        || parallelism <= 0) {
+      throw new IllegalArgumentException("Invalid arena settings.");
+    }
+    this.size = size;
+    this.count = count;
+    this.regionsAcross = (size + Board.REGION_SIZE - 1) / Board.REGION_SIZE;
+    this.rng = new Random(seed);
+    this.board = new Board(size, size, rng);
+    this.pool = new ForkJoinPool(parallelism);
+    this.claims = new AtomicIntegerArray(size * size);
+    this.snakes = new SnakeBody[count];
+    this.bots = new BotInput[count];
+    this.ate = new FoodType[count];
+    this.effectEnd = new int[count];
+    this.respawnAt = new int[count];
+    this.alive = new boolean[count];
+    this.moving = new boolean[count];
+    this.dying = new boolean[count];
+    this.target = new int[count];
+    this.tail = new int[count];
+    this.regionStart = new int[regionsAcross * regionsAcross + 1];
+    this.order = new int[count];
+    for (int i = 0; i < count; i++) {
+      bots[i] = new BotInput(new Random(seed * 1000003 + i));
+      ate[i] = FoodType.DEFAULT;
+    }
+    respawn();
+    for (int i = 0; i < count; i++) {
+      board.addFood(board.newFood(FoodType.DEFAULT));
+    }
+  }
+
+  /**
+   * Sets how long things in the arena last, in ticks.
+   *
+   * @param spawnTicks     how long between attempts to spawn special foods
+   * @param despawnTicks   how long special foods stay on the board
+   * @param effectTicks    how long the effect of a special food lasts
+   * @param respawnTicks   how long a dead snake waits to come back
+   * @throws IllegalArgumentException if any of the times are not positive
+   */
+  public void setTimings(int spawnTicks, int despawnTicks, int effectTicks, int respawnTicks)
+      throws IllegalArgumentException {
+    if (spawnTicks <= 0 || despawnTicks <= 0 || effectTicks <= 0 || respawnTicks <= 0) {
+      throw new IllegalArgumentException("Invalid timings.");
+    }
+    this.spawnTicks = spawnTicks;
+    this.despawnTicks = despawnTicks;
+    this.effectTicks = effectTicks;
+    this.respawnTicks = respawnTicks;
+  }
+
+  public Board getBoard() {
+    return this.board;
+  }
+
+  public int getTicks() {
+    return this.ticks;
+  }
+
+  public int getDeaths() {
+    return this.deaths;
+  }
+
+  public int getEaten() {
+    return this.eaten;
+  }
+
+  /**
+   * Returns the number of snakes currently alive.
+   *
+   * @return the number of live snakes
+   */
+  public int aliveCount() {
+    int n = 0;
+    for (int i = 0; i < count; i++) {
+      if (alive[i]) {
+        n++;
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Returns the total length of every live snake.
+   *
+   * @return the total length
+   */
+  public long totalLength() {
+    long n = 0;
+    for (int i = 0; i < count; i++) {
+      if (alive[i]) {
+        n += snakes[i].size();
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Returns a hash of where every snake and food is, for checking that two arenas
+   * played the same way.
+   *
+   * @return the hash of the arena
+   */
+  public long checksum() {
+    long h = ticks;
+    for (int i = 0; i < count; i++) {
+      h = h * 31 + (alive[i] ? snakes[i].size() : -1);
+      if (alive[i]) {
+        h = h * 31 + snakes[i].headX();
+        h = h * 31 + snakes[i].headY();
+        h = h * 31 + snakes[i].tailX();
+        h = h * 31 + snakes[i].tailY();
+      }
+    }
+    for (int i = 0; i < board.foodCount(); i++) {
+      AFoodSpace f = board.getFood(i);
+      h = h * 31 + f.y * size + f.x;
+    }
+    return h * 31 + board.slimeCount();
+  }
+
+  /**
+   * Advances the arena by one tick.
+   */
+  public void tick() {
+    respawn();
+    eat();
+    group();
+    pool.invoke(new RegionTask(DECIDE, 0, regionStart.length - 1));
+    pool.invoke(new RegionTask(RESOLVE, 0, regionStart.length - 1));
+    apply();
+    updateFood();
+    ticks++;
+  }
+
+  /**
+   * Stops the threads used to work on regions.
+   */
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  /**
+   * Helper to the tick() function. Brings back every dead snake whose wait is over,
+   * on a random free space.
+   */
+  private void respawn() {
+    for (int i = 0; i < count; i++) {
+      if (!alive[i] && respawnAt[i] <= ticks) {
+        int cell = board.randomFreeCell();
+        if (cell < 0) {
+          return;
+        }
+        if (snakes[i] == null) {
+          snakes[i] = new SnakeBody(board, board.cellX(cell), board.cellY(cell));
+        } else {
+          snakes[i].reset(board.cellX(cell), board.cellY(cell));
+        }
+        ate[i] = FoodType.DEFAULT;
+        alive[i] = true;
+      }
+    }
+  }
+
+  /**
+   * Helper to the tick() function. Ends food effects that have run out, and lets
+   * every snake with its head on a food eat it. A snake that eats a food that would
+   * grow it into a wall, slime or another snake dies instead, as does one left with
+   * no head.
+   */
+  private void eat() {
+    boolean slimed = false;
+    for (int i = 0; i < count; i++) {
+      if (!alive[i]) {
+        continue;
+      }
+      if (!ate[i].equals(FoodType.DEFAULT) && ticks >= effectEnd[i]) {
+        ate[i] = FoodType.DEFAULT;
+      }
+      SnakeBody snake = snakes[i];
+      AFoodSpace f = board.foodAt(snake.headX(), snake.headY());
+      if (f != null) {
+        if (f.getType().equals(FoodType.DEFAULT) && !snake.getDirection().equals(Direction.STILL)
+            && blocked(snake.aheadX(ate[i], size - 1, size - 1), snake.aheadY(ate[i], size - 1, size - 1))) {
+          kill(i);
+          continue;
+        }
+        FoodType change = f.eatEffect(snake, board, ate[i], size - 1, size - 1);
+        board.removeFood(f);
+        eaten++;
+        if (!change.equals(FoodType.DEFAULT)) {
+          ate[i] = change;
+          effectEnd[i] = ticks + effectTicks;
+        }
+        if (snake.size() == 0) {
+          kill(i);
+          continue;
+        }
+      }
+      if (ate[i].equals(FoodType.SLIMER)) {
+        slimed = true;
+      }
+    }
+    if (!slimed && board.slimeCount() > 0) {
+      board.clearSlime();
+    }
+  }
+
+  /**
+   * Helper to the tick() function. Decides which snakes move this tick, and sorts
+   * them by the region their head is in, keeping them in id order within a region.
+   */
+  private void group() {
+    for (int r = 0; r < regionStart.length; r++) {
+      regionStart[r] = 0;
+    }
+    for (int i = 0; i < count; i++) {
+      moving[i] = alive[i] && (ticks + i) % period(ate[i]) == 0;
+      if (moving[i]) {
+        regionStart[region(i) + 1]++;
+      }
+    }
+    for (int r = 1; r < regionStart.length; r++) {
+      regionStart[r] += regionStart[r - 1];
+    }
+    for (int i = 0; i < count; i++) {
+      if (moving[i]) {
+        order[regionStart[region(i)]++] = i;
+      }
+    }
+    for (int r = regionStart.length - 1; r > 0; r--) {
+      regionStart[r] = regionStart[r - 1];
+    }
+    regionStart[0] = 0;
+  }
+
+  /**
+   * Helper to the tick() function. Moves every snake that survived its move, in id
+   * order, after taking the dead snakes off the board and the tails off the movers,
+   * so that a snake may move into a space another snake's tail just left. Clears
+   * the claims made this tick.
+   */
+  private void apply() {
+    for (int i = 0; i < count; i++) {
+      if (moving[i] && dying[i]) {
+        kill(i);
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      if (moving[i] && !dying[i]) {
+        if (ate[i].equals(FoodType.SLIMER)) {
+          board.addSlime(snakes[i].tailX(), snakes[i].tailY());
+        }
+        snakes[i].removeTail();
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      if (moving[i]) {
+        if (!dying[i]) {
+          snakes[i].addHead(target[i] % size, target[i] / size);
+        }
+        if (target[i] >= 0) {
+          claims.set(target[i], 0);
+        }
+        claims.set(tail[i], 0);
+      }
+    }
+  }
+
+  /**
+   * Helper to the tick() function. Spawns special foods every so often, a few at a
+   * time across the arena, and despawns them all once they have been out too long.
+   */
+  private void updateFood() {
+    if (ticks % spawnTicks == 0) {
+      for (int n = 0; n < Math.max(1, count / 8); n++) {
+        FoodType which = types[rng.nextInt(types.length)];
+        if (!which.equals(FoodType.DEFAULT) && rng.nextInt(which.getSpawnRate()) < 1) {
+          board.addFood(board.newFood(which));
+        }
+      }
+    }
+    if (ticks % despawnTicks == 0) {
+      for (int i = board.foodCount() - 1; i >= 0; i--) {
+        if (!board.getFood(i).getType().equals(FoodType.DEFAULT)) {
+          board.removeFood(i);
+        }
+      }
+    }
+  }
+
+  /**
+   * Takes the snake with the given id off the board, to come back after a wait.
+   */
+  private void kill(int i) {
+    while (snakes[i].size() > 0) {
+      snakes[i].removeTail();
+    }
+    alive[i] = false;
+    ate[i] = FoodType.DEFAULT;
+    respawnAt[i] = ticks + respawnTicks;
+    deaths++;
+  }
+
+  /**
+   * Checks whether a head can't go into the space at the given position.
+   */
+  private boolean blocked(int x, int y) {
+    return !board.inBounds(x, y) || board.has(x, y, Board.SNAKE | Board.SLIME);
+  }
+
+  /**
+   * Returns how many ticks apart a snake that ate the given food moves.
+   */
+  private int period(FoodType ate) {
+    if (ate.equals(FoodType.FAST)) {
+      return 1;
+    } else if (ate.equals(FoodType.SLOW)) {
+      return 9;
+    }
+    return 3;
+  }
+
+  /**
+   * Returns the region the head of the snake with the given id is in.
+   */
+  private int region(int i) {
+    return (snakes[i].headY() / Board.REGION_SIZE) * regionsAcross + snakes[i].headX() / Board.REGION_SIZE;
+  }
+
+  /**
+   * Phase 1 for one snake. Turns it the way its bot wants, and claims the space
+   * it moves into and the tail space it leaves. A snake that leaves slime behind
+   * doesn't mark its tail as left, so no head may follow it there.
+   */
+  private void decide(int i) {
+    SnakeBody snake = snakes[i];
+    Direction turn = bots[i].nextTurn(snake, board);
+    if (turn != null) {
+      snake.turn(turn);
+    }
+    if (snake.getDirection().equals(Direction.STILL)) {
+      snake.turn(Direction.DIR_RIGHT);
+    }
+    int x = snake.aheadX(ate[i], size - 1, size - 1);
+    int y = snake.aheadY(ate[i], size - 1, size - 1);
+    tail[i] = snake.tailY() * size + snake.tailX();
+    if (!ate[i].equals(FoodType.SLIMER)) {
+      update(tail[i], TAIL);
+    }
+    if (board.inBounds(x, y)) {
+      target[i] = y * size + x;
+      update(target[i], 0);
+    } else {
+      target[i] = -1;
+    }
+  }
+
+  /**
+   * Phase 2 for one snake. Decides whether its move kills it.
+   */
+  private void resolve(int i) {
+    int t = target[i];
+    if (t < 0) {
+      dying[i] = true;
+      return;
+    }
+    int claim = claims.get(t);
+    int x = t % size;
+    int y = t / size;
+    dying[i] = (claim & ~TAIL) > ONE_CLAIM
+        || board.has(x, y, Board.SLIME)
+        || (board.has(x, y, Board.SNAKE) && (claim & TAIL) == 0);
+  }
+
+  /**
+   * Helper to the decide() function. Atomically marks the given space as a tail
+   * being left, or adds a claim on it, counting claims up to two.
+   */
+  private void update(int cell, int flag) {
+    while (true) {
+      int old = claims.get(cell);
+      int next = old | flag;
+      if (flag == 0) {
+        int claimed = (old >>> 28) & 3;
+        next = (old & TAIL) | (Math.min(claimed + 1, 2) << 28);
+      }
+      if (claims.compareAndSet(cell, old, next)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Runs one phase for the moving snakes in a range of regions, splitting the range
+   * in half until it holds few enough snakes.
+   */
+  private class RegionTask extends RecursiveAction {
+    private final int phase;
+    private final int lo;
+    private final int hi;
+
+    RegionTask(int phase, int lo, int hi) {
+      this.phase = phase;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo <= 1 || regionStart[hi] - regionStart[lo] <= SNAKES_PER_TASK) {
+        for (int k = regionStart[lo]; k < regionStart[hi]; k++) {
+          if (phase == DECIDE) {
+            decide(order[k]);
+          } else {
+            resolve(order[k]);
+          }
+        }
+        return;
+      }
+      int mid = (lo + hi) >>> 1;
+      invokeAll(new RegionTask(phase, lo, mid), new RegionTask(phase, mid, hi));
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+/**
+ * Represents the combined results of a batch of games.
+ */
+public class BatchResult {
+  private int games;
+  private long ticks;
+  private long totalScore;
+  private int maxScore;
+  private long nanos;
+
+  /**
+   * Adds a finished game to these results.
+   *
+   * @param gameTicks   the number of ticks the game ran for
+   * @param score       the final score of the game
+   */
+  public void add(int gameTicks, int score) {
+    games++;
+    ticks += gameTicks;
+    totalScore += score;
+    maxScore = max(maxScore, score);
+  }
+
+  /**
+   * Adds the given results to these results.
+   *
+   * @param other    the results to add
+   * @return these results
+   */
+  public BatchResult merge(BatchResult other) {
+    games += other.games;
+    ticks += other.ticks;
+    totalScore += other.totalScore;
+    maxScore = max(maxScore, other.maxScore);
+    return this;
+  }
+
+  public int getGames() {
+    return this.games;
+  }
+
+  public long getTicks() {
+    return this.ticks;
+  }
+
+  public double gamesPerSecond() {
+    return games / (nanos / 1e9);
+  }
+
+  public double ticksPerSecond() {
+    return ticks / (nanos / 1e9);
+  }
+
+  public double averageScore() {
+    return games == 0 ? 0 : (double) totalScore / games;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d games, %d ticks in %.2f s: %.1f games/sec, %.0f ticks/sec, "
+        + "average score %.2f, best score %d",
+        games, ticks, nanos / 1e9, gamesPerSecond(), ticksPerSecond(), averageScore(), maxScore);
+  }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many seeded games at once with bots, spread across all cores, and reports
+ * how fast they ran. Used to tune food spawn rates and timings without a window.
+ */
+public class BatchRunner {
+  private static final int GAMES_PER_TASK = 16;
+
+  private final int boardSize;
+  private final int maxTicks;
+  private final ForkJoinPool pool;
+  private final int[] spawnRates = new int[FoodType.values().length];
+  private int foodSpawnWait = SnakeEngine.DEFAULT_SPAWN_WAIT;
+  private int foodDespawnWait = SnakeEngine.DEFAULT_DESPAWN_WAIT;
+  private int foodEffectWait = SnakeEngine.DEFAULT_EFFECT_WAIT;
+
+  /**
+   * Constructs a {@code BatchRunner} that uses every core.
+   *
+   * @param boardSize   the number of spaces across and down the board
+   * @param maxTicks    the most ticks a single game may run for
+   * @throws IllegalArgumentException if either value is not positive
+   */
+  public BatchRunner(int boardSize, int maxTicks) throws IllegalArgumentException {
+    this(boardSize, maxTicks, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a {@code BatchRunner}.
+   *
+   * @param boardSize     the number of spaces across and down the board
+   * @param maxTicks      the most ticks a single game may run for
+   * @param parallelism   the number of threads to play games on
+   * @throws IllegalArgumentException if any value is not positive
+   */
+  public BatchRunner(int boardSize, int maxTicks, int parallelism) throws IllegalArgumentException {
+    if (boardSize <= 0 || maxTicks <= 0 || parallelism <= 0) {
+      throw new IllegalArgumentException("Invalid batch settings.");
+    }
+    this.boardSize = boardSize;
+    this.maxTicks = maxTicks;
+    this.pool = new ForkJoinPool(parallelism);
+    for (FoodType t : FoodType.values()) {
+      spawnRates[t.ordinal()] = t.getSpawnRate();
+    }
+  }
+
+  /**
+   * Sets how long the timers in each game wait, in milliseconds of game time.
+   *
+   * @param spawnWait     how long between attempts to spawn a special food
+   * @param despawnWait   how long special foods stay on the board
+   * @param effectWait    how long the effect of a special food lasts
+   * @throws IllegalArgumentException if any of the waits are negative
+   */
+  public void setTimings(int spawnWait, int despawnWait, int effectWait) throws IllegalArgumentException {
+    if (spawnWait < 0 || despawnWait < 0 || effectWait < 0) {
+      throw new IllegalArgumentException("Invalid timings.");
+    }
+    this.foodSpawnWait = spawnWait;
+    this.foodDespawnWait = despawnWait;
+    this.foodEffectWait = effectWait;
+  }
+
+  /**
+   * Sets the rate at which the given type of food spawns in each game, as a one in
+   * spawnRate chance.
+   *
+   * @param type        the type of food
+   * @param spawnRate   the new spawn rate
+   * @throws IllegalArgumentException if the type is null or the rate is not positive
+   */
+  public void setSpawnRate(FoodType type, int spawnRate) throws IllegalArgumentException {
+    if (type == null || spawnRate <= 0) {
+      throw new IllegalArgumentException("Invalid spawn rate.");
+    }
+    spawnRates[type.ordinal()] = spawnRate;
+  }
+
+  /**
+   * Plays the given number of games, seeded one after another from the first seed.
+   *
+   * @param firstSeed   the seed of the first game
+   * @param games       the number of games to play
+   * @return the combined results of every game
+   * @throws IllegalArgumentException if the number of games is negative
+   */
+  public BatchResult run(long firstSeed, int games) throws IllegalArgumentException {
+    if (games < 0) {
+      throw new IllegalArgumentException("Invalid number of games.");
+    }
+    long start = System.nanoTime();
+    BatchResult result = pool.invoke(new GamesTask(firstSeed, firstSeed + games));
+    result.nanos = System.nanoTime() - start;
+    return result;
+  }
+
+  /**
+   * Stops the threads used to play games.
+   */
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  /**
+   * Plays a single game with a bot until it is over or runs out of ticks.
+   *
+   * @param seed      the seed of the game
+   * @param result    the results to add this game to
+   */
+  private void play(long seed, BatchResult result) {
+    SnakeEngine engine = new SnakeEngine(boardSize, seed, new BotInput(new Random(~seed)));
+    engine.setTimings(foodSpawnWait, foodDespawnWait, foodEffectWait);
+    for (FoodType t : FoodType.values()) {
+      engine.setSpawnRate(t, spawnRates[t.ordinal()]);
+    }
+    while (!engine.isOver() && engine.getTicks() < maxTicks) {
+      engine.tick();
+    }
+    result.add(engine.getTicks(), engine.getScore());
+  }
+
+  /**
+   * Plays a range of seeds, splitting the range in half until it is small enough.
+   */
+  private class GamesTask extends RecursiveTask<BatchResult> {
+    private final long lo;
+    private final long hi;
+
+    GamesTask(long lo, long hi) {
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected BatchResult compute() {
+      if (hi - lo <= GAMES_PER_TASK) {
+        BatchResult result = new BatchResult();
+        for (long seed = lo; seed < hi; seed++) {
+          play(seed, result);
+        }
+        return result;
+      }
+      long mid = lo + (hi - lo) / 2;
+      GamesTask left = new GamesTask(lo, mid);
+      left.fork();
+      BatchResult right = new GamesTask(mid, hi).compute();
+      return right.merge(left.join());
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,641 @@
+import java.util.Random;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents what occupies each space on the grid. Tracks the spaces taken up by
+ * the snake, slime and food, so that collision checks and food lookups take
+ * constant time, along with a tree counting the free spaces, so that a random free
+ * space is found in logarithmic time. The space picked depends only on which
+ * spaces are free, not on the order they were freed in, so a board read back from
+ * its occupancy picks the same spaces as the one written. A list of the free spaces,
+ * removed from by swapping in the last one, would find a space in constant time,
+ * but its order depends on the game's history, so every keyframe would have to
+ * store the whole list to play on the same way.
+ * Foods are kept in a list along with where each one is in it, and a food is
+ * removed by moving the last one into its place, so removing one takes constant
+ * time however many there are. Each food is also kept in a list for the square
+ * region of the board it is in, so foods near a space can be found without
+ * looking at every food. Removed foods are kept in a pool and reused, so a
+ * running game doesn't allocate. Every space marked or unmarked is noted until the
+ * changes are cleared, so that a copy of the board can be kept up to date without
+ * walking every space.
+ */
+public class Board {
+  public static final int SNAKE = 1;
+  public static final int SLIME = 2;
+  public static final int FOOD = 4;
+  public static final int HEAD = 8;
+  public static final int FOOD_TYPE_SHIFT = 4;
+  public static final int REGION_SIZE = 64;
+  private static final int MAX_CHANGES = 4096;
+
+  private final int cols;
+  private final int rows;
+  private final int regionsAcross;
+  private final int regionsDown;
+  private final Random rng;
+  private final byte[] cells;
+  private final AFoodSpace[] foodAt;
+  private final int[] foodPos;
+  private final int[] freeTree;
+  private int freeCount;
+  private final ArrayList<AFoodSpace> foods;
+  private final ArrayList<ArrayList<AFoodSpace>> regionFoods;
+  private final int[] regionPos;
+  private final ArrayList<ArrayList<AFoodSpace>> pool;
+  private int[] slime;
+  private int slimeCount;
+  private final int[] changes;
+  private int changeCount;
+  private boolean allChanged;
+
+  /**
+   * Constructs an empty {@code Board}.
+   *
+   * @param cols    the number of spaces across
+   * @param rows    the number of spaces down
+   * @param rng     the random number generator used to place food
+   * @throws IllegalArgumentException if either dimension is not positive, or if
+   *                                  the given {@code Random} is null
+   */
+  public Board(int cols, int rows, Random rng) throws IllegalArgumentException {
+    if (cols <= 0 || rows <= 0 || rng == null) {
+      throw new IllegalArgumentException("Invalid board size.");
+    }
+    this.cols = cols;
+    this.rows = rows;
+    this.regionsAcross = (cols + REGION_SIZE - 1) / REGION_SIZE;
+    this.regionsDown = (rows + REGION_SIZE - 1) / REGION_SIZE;
+    this.rng = rng;
+    this.cells = new byte[cols * rows];
+    this.foodAt = new AFoodSpace[cols * rows];
+    this.foodPos = new int[cols * rows];
+    this.freeTree = new int[cols * rows + 1];
+    this.foods = new ArrayList<AFoodSpace>();
+    this.regionFoods = new ArrayList<ArrayList<AFoodSpace>>();
+    for (int i = 0; i < regionsAcross * regionsDown; i++) {
+      regionFoods.add(new ArrayList<AFoodSpace>());
+    }
+    this.regionPos = new int[cols * rows];
+    this.pool = new ArrayList<ArrayList<AFoodSpace>>();
+    for (int i = 0; i < FoodType.values().length; i++) {
+      pool.add(new ArrayList<AFoodSpace>());
+    }
+    this.slime = new int[64];
+    this.changes = new int[Math.min(MAX_CHANGES, cols * rows)];
+    reset();
+  }
+
+  /**
+   * Empties every space on this {@code Board}.
+   */
+  public void reset() {
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = 0;
+      foodAt[i] = null;
+      freeTree[i + 1] = (i + 1) & -(i + 1);
+    }
+    freeCount = cells.length;
+    for (int i = 0; i < foods.size(); i++) {
+      recycle(foods.get(i));
+    }
+    foods.clear();
+    for (int i = 0; i < regionFoods.size(); i++) {
+      regionFoods.get(i).clear();
+    }
+    slimeCount = 0;
+    changeCount = 0;
+    allChanged = true;
+  }
+
+  public int getWidth() {
+    return this.cols;
+  }
+
+  public int getHeight() {
+    return this.rows;
+  }
+
+  /**
+   * Returns the random number generator used by this {@code Board}, so that
+   * everything random in a game comes from the same seed.
+   *
+   * @return the random number generator
+   */
+  public Random getRandom() {
+    return this.rng;
+  }
+
+  /**
+   * Checks whether the given position is on this {@code Board}.
+   *
+   * @param x     the x-position
+   * @param y     the y-position
+   * @return true if on the board, false otherwise
+   */
+  public boolean inBounds(int x, int y) {
+    return x >= 0 && x < cols && y >= 0 && y < rows;
+  }
+
+  /**
+   * Checks whether the space at the given position has the given flag.
+   *
+   * @param x       the x-position
+   * @param y       the y-position
+   * @param flag    one of SNAKE, SLIME, FOOD or HEAD
+   * @return true if the space has the flag, false otherwise or if off the board
+   */
+  public boolean has(int x, int y, int flag) {
+    return inBounds(x, y) && (cells[y * cols + x] & flag) != 0;
+  }
+
+  /**
+   * Adds the given flag to the space at the given position. Does nothing if
+   * the position is off the board.
+   *
+   * @param x       the x-position
+   * @param y       the y-position
+   * @param flag    one of SNAKE, SLIME, FOOD or HEAD
+   */
+  public void mark(int x, int y, int flag) {
+    if (inBounds(x, y)) {
+      int cell = y * cols + x;
+      boolean wasEmpty = cells[cell] == 0;
+      cells[cell] |= flag;
+      updateFree(cell, wasEmpty);
+      noteChange(cell);
+    }
+  }
+
+  /**
+   * Removes the given flag from the space at the given position. Does nothing if
+   * the position is off the board.
+   *
+   * @param x       the x-position
+   * @param y       the y-position
+   * @param flag    one of SNAKE, SLIME, FOOD or HEAD
+   */
+  public void unmark(int x, int y, int flag) {
+    if (inBounds(x, y)) {
+      int cell = y * cols + x;
+      boolean wasEmpty = cells[cell] == 0;
+      cells[cell] &= ~flag;
+      updateFree(cell, wasEmpty);
+      noteChange(cell);
+    }
+  }
+
+  /**
+   * Copies the state of every space into the given array, one byte per space in
+   * rows from the top left. The low bits hold the SNAKE, SLIME, FOOD and HEAD flags,
+   * and the bits from FOOD_TYPE_SHIFT up hold the ordinal of the food's type.
+   *
+   * @param out    the array to copy into
+   * @throws IllegalArgumentException if the array is null or too small
+   */
+  public void copyCells(byte[] out) throws IllegalArgumentException {
+    if (out == null || out.length < cells.length) {
+      throw new IllegalArgumentException("Invalid array.");
+    }
+    System.arraycopy(cells, 0, out, 0, cells.length);
+    for (int i = 0; i < foods.size(); i++) {
+      AFoodSpace f = foods.get(i);
+      int cell = f.y * cols + f.x;
+      out[cell] = (byte) (out[cell] | (f.getType().ordinal() << FOOD_TYPE_SHIFT));
+    }
+  }
+
+  /**
+   * Returns the state of the space at the given index, as copyCells() would copy it.
+   *
+   * @param cell   the index of the space
+   * @return the flags and food type of the space
+   */
+  public int cellState(int cell) {
+    AFoodSpace f = foodAt[cell];
+    if (f == null) {
+      return cells[cell];
+    }
+    return cells[cell] | (f.getType().ordinal() << FOOD_TYPE_SHIFT);
+  }
+
+  /**
+   * Returns the number of spaces changed since the changes were last cleared,
+   * counting a space again each time it changes.
+   *
+   * @return the number of changes noted
+   */
+  public int changeCount() {
+    return this.changeCount;
+  }
+
+  /**
+   * Returns the index of the space of the given change.
+   *
+   * @param i      the index of the change, in the order they happened
+   * @return the index of the space that changed
+   */
+  public int getChange(int i) {
+    return changes[i];
+  }
+
+  /**
+   * Checks whether too much changed since the changes were last cleared to note
+   * each space, or the board was reset, so that every space has to be treated as changed.
+   *
+   * @return true if every space may have changed, false if the changes noted are all of them
+   */
+  public boolean allChanged() {
+    return this.allChanged;
+  }
+
+  /**
+   * Forgets the changes noted so far.
+   */
+  public void clearChanges() {
+    changeCount = 0;
+    allChanged = false;
+  }
+
+  /**
+   * Returns the number of spaces with nothing on them.
+   *
+   * @return the number of free spaces
+   */
+  public int freeCount() {
+    return this.freeCount;
+  }
+
+  /**
+   * Picks a free space uniformly at random, as the free space at a random rank
+   * counting across the board from the top left.
+   *
+   * @return the index of the space, or -1 if the board is full
+   */
+  public int randomFreeCell() {
+    if (freeCount == 0) {
+      return -1;
+    }
+    int rank = rng.nextInt(freeCount);
+    int cell = 0;
+    for (int step = Integer.highestOneBit(cells.length); step > 0; step >>= 1) {
+      int next = cell + step;
+      if (next <= cells.length && freeTree[next] <= rank) {
+        cell = next;
+        rank -= freeTree[next];
+      }
+    }
+    return cell;
+  }
+
+  public int cellX(int cell) {
+    return cell % cols;
+  }
+
+  public int cellY(int cell) {
+    return cell / cols;
+  }
+
+  /**
+   * Returns the number of foods on this {@code Board}.
+   *
+   * @return the number of foods
+   */
+  public int foodCount() {
+    return foods.size();
+  }
+
+  /**
+   * Returns the food at the given index. Foods are added at the end, but removing
+   * one moves the last food into its place.
+   *
+   * @param i      the index of the food
+   * @return the food at that index
+   */
+  public AFoodSpace getFood(int i) {
+    return foods.get(i);
+  }
+
+  public int regionsAcross() {
+    return this.regionsAcross;
+  }
+
+  public int regionsDown() {
+    return this.regionsDown;
+  }
+
+  /**
+   * Returns the number of foods in the given region.
+   *
+   * @param region    the index of the region, counting across then down
+   * @return the number of foods in that region
+   */
+  public int regionFoodCount(int region) {
+    return regionFoods.get(region).size();
+  }
+
+  /**
+   * Returns the food at the given index in the given region's list.
+   *
+   * @param region    the index of the region, counting across then down
+   * @param i         the index of the food in the region
+   * @return the food at that index
+   */
+  public AFoodSpace getRegionFood(int region, int i) {
+    return regionFoods.get(region).get(i);
+  }
+
+  /**
+   * Returns the food at the given position.
+   *
+   * @param x     the x-position
+   * @param y     the y-position
+   * @return the food at that position, or null if there is none
+   */
+  public AFoodSpace foodAt(int x, int y) {
+    if (!inBounds(x, y)) {
+      return null;
+    }
+    return foodAt[y * cols + x];
+  }
+
+  /**
+   * Returns a food of the given type, reusing one that was removed if possible.
+   * The food is not on the board until it is added.
+   *
+   * @param type   the type of food
+   * @return a food of that type
+   * @throws IllegalArgumentException if the given type is null
+   */
+  public AFoodSpace newFood(FoodType type) throws IllegalArgumentException {
+    if (type == null) {
+      throw new IllegalArgumentException("Invalid food type.");
+    }
+    ArrayList<AFoodSpace> free = pool.get(type.ordinal());
+    if (free.size() > 0) {
+      return free.remove(free.size() - 1);
+    }
+    switch (type) {
+      case DECAPITATOR:
+        return new DecapitatorFoodSpace();
+      case REVERSE:
+        return new ReverseFoodSpace();
+      case EXPLODER:
+        return new ExploderFoodSpace();
+      case STAR:
+        return new StarFoodSpace();
+      case FAST:
+        return new FastFoodSpace();
+      case SLOW:
+        return new SlowFoodSpace();
+      case SLIMER:
+        return new SlimerFoodSpace();
+      default:
+        return new DefaultFoodSpace();
+    }
+  }
+
+  /**
+   * Places the given food on a random free space and adds it after the other foods.
+   *
+   * @param f      the food to place
+   * @return true if the food was placed, false if the board is full
+   * @throws IllegalArgumentException if the given food is null
+   */
+  public boolean addFood(AFoodSpace f) throws IllegalArgumentException {
+    if (f == null) {
+      throw new IllegalArgumentException("Can't add null.");
+    }
+    if (!f.randomSpace(this)) {
+      recycle(f);
+      return false;
+    }
+    place(f);
+    return true;
+  }
+
+  /**
+   * Removes the given food from this {@code Board}, if it is on it. The food may
+   * be reused afterwards, so it should not be kept.
+   *
+   * @param f      the food to remove
+   */
+  public void removeFood(AFoodSpace f) {
+    AFoodSpace on = foodAt(f.x, f.y);
+    if (on == f) {
+      removeFood(foodPos[f.y * cols + f.x]);
+    }
+  }
+
+  /**
+   * Removes the food at the given index from this {@code Board}, moving the last
+   * food into its place. The food may be reused afterwards, so it should not be kept.
+   *
+   * @param i      the index of the food
+   */
+  public void removeFood(int i) {
+    AFoodSpace f = foods.get(i);
+    AFoodSpace last = foods.remove(foods.size() - 1);
+    if (last != f) {
+      foods.set(i, last);
+      foodPos[last.y * cols + last.x] = i;
+    }
+    unplace(f);
+    recycle(f);
+  }
+
+  /**
+   * Adds slime to the space at the given position, if not already slimed.
+   *
+   * @param x     the x-position
+   * @param y     the y-position
+   */
+  public void addSlime(int x, int y) {
+    if (!inBounds(x, y) || has(x, y, SLIME)) {
+      return;
+    }
+    if (slimeCount == slime.length) {
+      slime = Arrays.copyOf(slime, slime.length * 2);
+    }
+    slime[slimeCount++] = y * cols + x;
+    mark(x, y, SLIME);
+  }
+
+  /**
+   * Returns the number of slimed spaces on this {@code Board}.
+   *
+   * @return the number of slimed spaces
+   */
+  public int slimeCount() {
+    return this.slimeCount;
+  }
+
+  public int slimeX(int i) {
+    return cellX(slime[i]);
+  }
+
+  public int slimeY(int i) {
+    return cellY(slime[i]);
+  }
+
+  /**
+   * Removes all slime from this {@code Board}.
+   */
+  public void clearSlime() {
+    for (int i = 0; i < slimeCount; i++) {
+      unmark(slimeX(i), slimeY(i), SLIME);
+    }
+    slimeCount = 0;
+  }
+
+  /**
+   * Returns the most bytes writeState() would currently write.
+   *
+   * @return the size of the state in bytes
+   */
+  public int stateSize() {
+    return 8 + 9 * foods.size() + cellBytes() * slimeCount;
+  }
+
+  /**
+   * Writes the foods and slime of this {@code Board} to the given buffer, in the
+   * order they are kept in. The free spaces aren't written, since they are the
+   * spaces left once the snake, foods and slime are read back. Spaces are written
+   * as shorts on boards small enough.
+   *
+   * @param out    the buffer to write to
+   */
+  public void writeState(ByteBuffer out) {
+    out.putInt(foods.size());
+    for (int i = 0; i < foods.size(); i++) {
+      AFoodSpace f = foods.get(i);
+      out.put((byte) f.getType().ordinal());
+      out.putInt(f.x);
+      out.putInt(f.y);
+    }
+    out.putInt(slimeCount);
+    for (int i = 0; i < slimeCount; i++) {
+      putCell(out, slime[i]);
+    }
+  }
+
+  /**
+   * Reads foods and slime written by writeState() from the given buffer and adds
+   * them to this {@code Board}. The snake should already be on the board.
+   *
+   * @param in     the buffer to read from
+   */
+  public void readState(ByteBuffer in) {
+    FoodType[] types = FoodType.values();
+    int count = in.getInt();
+    for (int i = 0; i < count; i++) {
+      AFoodSpace f = newFood(types[in.get()]);
+      f.moveTo(in.getInt(), in.getInt());
+      place(f);
+    }
+    count = in.getInt();
+    for (int i = 0; i < count; i++) {
+      int cell = getCell(in);
+      addSlime(cellX(cell), cellY(cell));
+    }
+  }
+
+  /**
+   * Helper to the state functions. Returns the number of bytes a space index takes.
+   */
+  private int cellBytes() {
+    return (cells.length <= 0x10000) ? 2 : 4;
+  }
+
+  private void putCell(ByteBuffer out, int cell) {
+    if (cellBytes() == 2) {
+      out.putShort((short) cell);
+    } else {
+      out.putInt(cell);
+    }
+  }
+
+  private int getCell(ByteBuffer in) {
+    if (cellBytes() == 2) {
+      return in.getShort() & 0xFFFF;
+    }
+    return in.getInt();
+  }
+
+  /**
+   * Returns the given food to the pool of foods to reuse.
+   */
+  private void recycle(AFoodSpace f) {
+    pool.get(f.getType().ordinal()).add(f);
+  }
+
+  /**
+   * Helper to the addFood() and readState() functions. Puts the given food on its
+   * space and adds it after the other foods, and after the others in its region.
+   */
+  private void place(AFoodSpace f) {
+    int cell = f.y * cols + f.x;
+    foodAt[cell] = f;
+    foodPos[cell] = foods.size();
+    mark(f.x, f.y, FOOD);
+    foods.add(f);
+    ArrayList<AFoodSpace> region = regionFoods.get(regionOf(f.x, f.y));
+    regionPos[cell] = region.size();
+    region.add(f);
+  }
+
+  /**
+   * Helper to the removeFood() functions. Clears the given food's space, and
+   * removes it from its region by moving the region's last food into its place.
+   */
+  private void unplace(AFoodSpace f) {
+    int cell = f.y * cols + f.x;
+    ArrayList<AFoodSpace> region = regionFoods.get(regionOf(f.x, f.y));
+    AFoodSpace last = region.remove(region.size() - 1);
+    if (last != f) {
+      region.set(regionPos[cell], last);
+      regionPos[last.y * cols + last.x] = regionPos[cell];
+    }
+    if (foodAt[cell] == f) {
+      foodAt[cell] = null;
+      unmark(f.x, f.y, FOOD);
+    }
+  }
+
+  /**
+   * Returns the index of the region the given position is in.
+   */
+  private int regionOf(int x, int y) {
+    return (y / REGION_SIZE) * regionsAcross + x / REGION_SIZE;
+  }
+
+  /**
+   * Notes that the given space changed, or that everything did once too many have.
+   */
+  private void noteChange(int cell) {
+    if (allChanged) {
+      return;
+    }
+    if (changeCount == changes.length) {
+      allChanged = true;
+    } else {
+      changes[changeCount++] = cell;
+    }
+  }
+
+  /**
+   * Counts the given space in the tree of free spaces if it just became empty, or
+   * stops counting it if it just stopped being empty.
+   */
+  private void updateFree(int cell, boolean wasEmpty) {
+    boolean empty = cells[cell] == 0;
+    if (empty == wasEmpty) {
+      return;
+    }
+    int delta = empty ? 1 : -1;
+    freeCount += delta;
+    for (int i = cell + 1; i <= cells.length; i += i & -i) {
+      freeTree[i] += delta;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,205 @@
+/**
+ * Represents a copy of everything needed to draw a game at one tick, so that it
+ * can be drawn on one thread while the game carries on ticking on another. The
+ * copy is brought up to date from a {@code ChangeLog}, copying only the spaces
+ * changed since it was last taken, and it lists the spaces that changed since the
+ * copy last drawn, so the drawing thread only has to look at those. It also lists
+ * the spaces drawn differently every frame, which are the star foods and, while
+ * the snake is under a star's effect, the snake.
+ */
+public class BoardSnapshot {
+  private static final int MAX_DIRTY = 4096;
+
+  private final FoodType[] types = FoodType.values();
+  private final int cols;
+  private final int rows;
+  private final byte[] cells;
+  private final int[] dirty;
+  private final int[] starCells;
+  private int dirtyCount = -1;
+  private int starCount;
+  private int seq;
+  private FoodType ate = FoodType.DEFAULT;
+  private int score;
+  private int ticks;
+  private int game;
+  private boolean over;
+  private boolean reverseMapping;
+
+  /**
+   * Constructs an empty {@code BoardSnapshot}.
+   *
+   * @param cols    the number of spaces across
+   * @param rows    the number of spaces down
+   */
+  public BoardSnapshot(int cols, int rows) {
+    this.cols = cols;
+    this.rows = rows;
+    this.cells = new byte[cols * rows];
+    this.dirty = new int[Math.min(MAX_DIRTY, cols * rows)];
+    this.starCells = new int[cols * rows];
+  }
+
+  /**
+   * Copies the current state of the given game into this {@code BoardSnapshot}.
+   * The changes of the game's board must already be recorded in the given log.
+   *
+   * @param engine      the game to copy
+   * @param game        the number of the game, counting restarts
+   * @param log         the log the board's changes are recorded in
+   * @param drawnSeq    the number of the newest snapshot known to have been drawn
+   * @throws IllegalArgumentException if the game's board is not the same size
+   */
+  public void capture(SnakeEngine engine, int game, ChangeLog log, int drawnSeq)
+      throws IllegalArgumentException {
+    Board board = engine.getBoard();
+    if (board.getWidth() != cols || board.getHeight() != rows) {
+      throw new IllegalArgumentException("Invalid board size.");
+    }
+    log.copyChanged(board, cells, seq);
+    this.seq = log.getSeq();
+    this.dirtyCount = log.listChanged(drawnSeq, dirty);
+    this.ate = engine.getAte();
+    listStarCells(board, engine.getSnake());
+    this.score = engine.getScore();
+    this.ticks = engine.getTicks();
+    this.game = game;
+    this.over = engine.isOver();
+    this.reverseMapping = engine.isReverseMapping();
+  }
+
+  /**
+   * Helper to the capture() function. Lists the spaces of the star foods on the
+   * board, and of the snake if it is under a star's effect, leaving out a head that
+   * went off the board.
+   */
+  private void listStarCells(Board board, SnakeBody snake) {
+    starCount = 0;
+    for (int i = 0; i < board.foodCount(); i++) {
+      AFoodSpace f = board.getFood(i);
+      if (f.getType().equals(FoodType.STAR)) {
+        starCells[starCount++] = f.y * cols + f.x;
+      }
+    }
+    if (ate.equals(FoodType.STAR)) {
+      for (int i = 0; i < snake.size() && starCount < starCells.length; i++) {
+        if (board.inBounds(snake.getX(i), snake.getY(i))) {
+          starCells[starCount++] = snake.getY(i) * cols + snake.getX(i);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of the changes this snapshot is up to date with.
+   *
+   * @return the number from the {@code ChangeLog}
+   */
+  public int getSeq() {
+    return this.seq;
+  }
+
+  /**
+   * Returns the number of spaces listed as changed since the snapshot last drawn.
+   *
+   * @return the number of spaces, or -1 if every space may have changed
+   */
+  public int dirtyCount() {
+    return this.dirtyCount;
+  }
+
+  /**
+   * Returns the index of a space that changed since the snapshot last drawn.
+   *
+   * @param i      the index in the list of changed spaces
+   * @return the index of the space
+   */
+  public int getDirty(int i) {
+    return dirty[i];
+  }
+
+  /**
+   * Returns the number of spaces drawn differently every frame.
+   *
+   * @return the number of star food and star snake spaces
+   */
+  public int starCount() {
+    return this.starCount;
+  }
+
+  /**
+   * Returns the index of a space drawn differently every frame.
+   *
+   * @param i      the index in the list of star spaces
+   * @return the index of the space
+   */
+  public int getStarCell(int i) {
+    return starCells[i];
+  }
+
+  public int getWidth() {
+    return this.cols;
+  }
+
+  public int getHeight() {
+    return this.rows;
+  }
+
+  /**
+   * Returns the state of the space at the given index, as copied by {@code Board.copyCells()}.
+   *
+   * @param cell   the index of the space
+   * @return the flags and food type of the space
+   */
+  public int cell(int cell) {
+    return cells[cell] & 0xFF;
+  }
+
+  /**
+   * Checks whether the space at the given index has the given flag.
+   *
+   * @param cell   the index of the space
+   * @param flag   one of SNAKE, SLIME, FOOD or HEAD from {@code Board}
+   * @return true if the space has the flag, false otherwise
+   */
+  public boolean has(int cell, int flag) {
+    return (cells[cell] & flag) != 0;
+  }
+
+  /**
+   * Returns the type of the food on the space at the given index.
+   *
+   * @param cell   the index of the space
+   * @return the type of food, or null if there is none
+   */
+  public FoodType foodType(int cell) {
+    if (!has(cell, Board.FOOD)) {
+      return null;
+    }
+    return types[(cells[cell] & 0xFF) >> Board.FOOD_TYPE_SHIFT];
+  }
+
+  public FoodType getAte() {
+    return this.ate;
+  }
+
+  public int getScore() {
+    return this.score;
+  }
+
+  public int getTicks() {
+    return this.ticks;
+  }
+
+  public int getGame() {
+    return this.game;
+  }
+
+  public boolean isOver() {
+    return this.over;
+  }
+
+  public boolean isReverseMapping() {
+    return this.reverseMapping;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+/**
+ * Represents a simple bot that steers the snake towards the nearest food,
+ * avoiding walls, slime and the snake itself where it can.
+ */
+public class BotInput implements InputSource {
+  private final Direction[] moves = {Direction.DIR_UP, Direction.DIR_DOWN,
+                                     Direction.DIR_LEFT, Direction.DIR_RIGHT};
+  private final Random rng;
+
+  /**
+   * Constructs a {@code BotInput}.
+   *
+   * @param rng    the random number generator used to break ties
+   * @throws IllegalArgumentException if the given {@code Random} is null
+   */
+  public BotInput(Random rng) throws IllegalArgumentException {
+    if (rng == null) {
+      throw new IllegalArgumentException("Invalid random number generator.");
+    }
+    this.rng = rng;
+  }
+
+  @Override
+  public Direction nextTurn(SnakeBody snake, Board board) {
+    if (snake.size() == 0) {
+      return null;
+    }
+    int hx = snake.headX();
+    int hy = snake.headY();
+    AFoodSpace target = nearestFood(board, hx, hy);
+    Direction current = snake.getDirection();
+    Direction best = null;
+    int bestScore = Integer.MAX_VALUE;
+    for (Direction d : moves) {
+      if (!d.equals(current) && !current.validTurn(d)) {
+        continue;
+      }
+      int nx = hx + d.dx();
+      int ny = hy + d.dy();
+      if (!board.inBounds(nx, ny) || board.has(nx, ny, Board.SNAKE | Board.SLIME)) {
+        continue;
+      }
+      int score = rng.nextInt(2);
+      if (target != null) {
+        score += 4 * (abs(target.x - nx) + abs(target.y - ny));
+      }
+      if (score < bestScore) {
+        bestScore = score;
+        best = d;
+      }
+    }
+    if (best == null || best.equals(current)) {
+      return null;
+    }
+    return best;
+  }
+
+  /**
+   * Helper to the nextTurn() function. Finds the food closest to the given position
+   * among the foods in the board region the position is in and the regions around
+   * it, or in the next rings of regions out if none of those have food.
+   *
+   * @return the closest food found, or null if there is none
+   */
+  private AFoodSpace nearestFood(Board board, int x, int y) {
+    int across = board.regionsAcross();
+    int down = board.regionsDown();
+    int rx = x / Board.REGION_SIZE;
+    int ry = y / Board.REGION_SIZE;
+    AFoodSpace nearest = null;
+    int best = Integer.MAX_VALUE;
+    for (int ring = 0; ring < Math.max(across, down) && (ring <= 1 || nearest == null); ring++) {
+      for (int gy = Math.max(0, ry - ring); gy <= Math.min(down - 1, ry + ring); gy++) {
+        int step = (gy == ry - ring || gy == ry + ring) ? 1 : 2 * ring;
+        for (int gx = rx - ring; gx <= rx + ring; gx += step) {
+          if (gx < 0 || gx >= across) {
+            continue;
+          }
+          int region = gy * across + gx;
+          for (int i = 0; i < board.regionFoodCount(region); i++) {
+            AFoodSpace f = board.getRegionFood(region, i);
+            int dist = abs(f.x - x) + abs(f.y - y);
+            if (dist < best) {
+              best = dist;
+              nearest = f;
+            }
+          }
+        }
+      }
+    }
+    return nearest;
+  }
+}
\ No newline at end of file
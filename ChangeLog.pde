@@ -0,0 +1,125 @@
+/**
+ * Represents the spaces of a board that changed over its recent ticks, so that copies
+ * of the board taken at different ticks can each be brought up to date by copying
+ * only what changed since they were taken. Each time the changes of the board are
+ * recorded they are given the next number, and a copy is described by the number
+ * it was taken at. The log is a ring of a fixed size, so a copy that falls too far
+ * behind, or that was taken before the board was reset, is copied again in full.
+ */
+public class ChangeLog {
+  private final int[] cells;
+  private final int[] seqs;
+  private final int mask;
+  private long written;
+  private int seq;
+  private int fullSeq;
+  private int lostSeq;
+
+  /**
+   * Constructs an empty {@code ChangeLog}.
+   *
+   * @param capacity    the most changes kept at once, a power of two
+   * @throws IllegalArgumentException if the capacity is not a positive power of two
+   */
+  public ChangeLog(int capacity) throws IllegalArgumentException {
+    if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+      throw new IllegalArgumentException("Invalid capacity.");
+    }
+    this.cells = new int[capacity];
+    this.seqs = new int[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Returns the number of the newest changes recorded.
+   *
+   * @return the number of the last record() call, or 0 if there were none
+   */
+  public int getSeq() {
+    return this.seq;
+  }
+
+  /**
+   * Takes every change the given board noted since the last record, and clears them.
+   *
+   * @param board    the board to take changes from
+   * @return the number given to these changes
+   */
+  public int record(Board board) {
+    seq++;
+    if (board.allChanged()) {
+      fullSeq = seq;
+    } else {
+      for (int i = 0; i < board.changeCount(); i++) {
+        int slot = (int) (written & mask);
+        if (written > mask) {
+          lostSeq = Math.max(lostSeq, seqs[slot]);
+        }
+        cells[slot] = board.getChange(i);
+        seqs[slot] = seq;
+        written++;
+      }
+    }
+    board.clearChanges();
+    return seq;
+  }
+
+  /**
+   * Checks whether every change since the given number is still in the log.
+   *
+   * @param since    the number a copy was taken at
+   * @return true if the copy can be brought up to date from the log, false otherwise
+   */
+  public boolean covers(int since) {
+    return since > 0 && since >= fullSeq && since >= lostSeq;
+  }
+
+  /**
+   * Copies the state of every space changed since the given number from the
+   * board into the given array, or of every space if the log doesn't cover it.
+   *
+   * @param board    the board to copy from
+   * @param into     the copy of the board's spaces, as copied by {@code Board.copyCells()}
+   * @param since    the number the copy was taken at
+   */
+  public void copyChanged(Board board, byte[] into, int since) {
+    if (!covers(since)) {
+      board.copyCells(into);
+      return;
+    }
+    for (long i = written - 1; i >= written - cells.length && i >= 0; i--) {
+      int slot = (int) (i & mask);
+      if (seqs[slot] <= since) {
+        break;
+      }
+      into[cells[slot]] = (byte) board.cellState(cells[slot]);
+    }
+  }
+
+  /**
+   * Adds the index of every space changed since the given number to the given array.
+   * A space that changed more than once may be added more than once.
+   *
+   * @param since    the number to list changes after
+   * @param into     the array to add the spaces to
+   * @return the number of spaces added, or -1 if the log doesn't cover the number
+   *         or the spaces don't fit, in which case every space may have changed
+   */
+  public int listChanged(int since, int[] into) {
+    if (!covers(since)) {
+      return -1;
+    }
+    int count = 0;
+    for (long i = written - 1; i >= written - cells.length && i >= 0; i--) {
+      int slot = (int) (i & mask);
+      if (seqs[slot] <= since) {
+        break;
+      }
+      if (count == into.length) {
+        return -1;
+      }
+      into[count++] = cells[slot];
+    }
+    return count;
+  }
+}
\ No newline at end of file
@@ -12,31 +12,30 @@ public final class DefaultFoodSpace extends AFoodSpace {
     super();
   }
   
+  @Override
+  public FoodType getType() {
+    return FoodType.DEFAULT;
+  }
+  
   /**
    * Adds a new head to the given snake, replacing the old one.
    *
-   * @param snake       a list of {@code SnakeSpace}s representing a snake
-   * @param foods       a list of {@code FoodSpace}s currently on the map
+   * @param snake       the {@code SnakeBody} of the snake
+   * @param board       the {@code Board} holding the foods currently on the map
    * @param ate         the last type of food the snake has eaten
    * @param hiX         the upper-bound of the x-position
    * @param hiY         the upper-bound of the y-position
-   * @throws IllegalArgumentException if given snake list is null or size 0, or if foods list is null
+   * @throws IllegalArgumentException if given snake is null or size 0, or if board is null
    * @return the FoodType representation of this food
    */
-  public FoodType eatEffect(ArrayList<SnakeSpace> snake, ArrayList<AFoodSpace> foods, FoodType ate,
+  public FoodType eatEffect(SnakeBody snake, Board board, FoodType ate,
                         int hiX, int hiY) throws IllegalArgumentException {
-    if (snake == null || snake.size() == 0 || foods == null) {
+    if (snake == null || snake.size() == 0 || board == null) {
       throw new IllegalArgumentException("Invalid lists passed.");
     }
-    for (SnakeSpace s : snake) {
-      s.setHead(false);
-    }
-    SnakeSpace newHead = new SnakeSpace(snake.get(0).x, snake.get(0).y, snake.get(0).direction);
-    newHead.setHead(true);
-    newHead.move(ate, hiX, hiY);
-    snake.add(0, newHead);
+    snake.grow(ate, hiX, hiY);
     if (!ate.equals(FoodType.EXPLODER)) {
-      foods.add(0, new DefaultFoodSpace());
+      board.addFood(board.newFood(FoodType.DEFAULT));
     }
     return FoodType.DEFAULT;
   }
@@ -21,4 +21,32 @@ public enum Direction {
       return other.equals(DIR_UP) || other.equals(DIR_DOWN);
     }
   }
+  
+  /**
+   * Returns the change in x-position when moving one space in this direction.
+   *
+   * @return -1, 0 or 1
+   */
+  int dx() {
+    if (this.equals(DIR_LEFT)) {
+      return -1;
+    } else if (this.equals(DIR_RIGHT)) {
+      return 1;
+    }
+    return 0;
+  }
+  
+  /**
+   * Returns the change in y-position when moving one space in this direction.
+   *
+   * @return -1, 0 or 1
+   */
+  int dy() {
+    if (this.equals(DIR_UP)) {
+      return -1;
+    } else if (this.equals(DIR_DOWN)) {
+      return 1;
+    }
+    return 0;
+  }
 }
\ No newline at end of file
@@ -12,6 +12,11 @@ public final class ExploderFoodSpace extends AFoodSpace {
     super();
   }
   
+  @Override
+  public FoodType getType() {
+    return FoodType.EXPLODER;
+  }
+  
   @Override
   public color getColor() {
     return color(#3a7cef);
@@ -21,22 +26,22 @@ public final class ExploderFoodSpace extends AFoodSpace {
    * When eaten, the exploder food explodes and creates a random amount of
    * {@code DefaultFoodSpace}s to appear across the map.
    *
-   * @param snake       a list of {@code SnakeSpace}s representing a snake
-   * @param foods       a list of {@code FoodSpace}s currently on the map
+   * @param snake       the {@code SnakeBody} of the snake
+   * @param board       the {@code Board} holding the foods currently on the map
    * @param ate         the last type of food the snake has eaten
    * @param hiX         the upper-bound of the x-position
    * @param hiY         the upper-bound of the y-position
-   * @throws IllegalArgumentException if given snake list is null or size 0, or if foods list is null
+   * @throws IllegalArgumentException if given snake is null or size 0, or if board is null
    * @return the FoodType representation of this food
    */
-  public FoodType eatEffect(ArrayList<SnakeSpace> snake, ArrayList<AFoodSpace> foods, FoodType ate,
+  public FoodType eatEffect(SnakeBody snake, Board board, FoodType ate,
                         int hiX, int hiY) throws IllegalArgumentException {
-    if (snake == null || snake.size() == 0 || foods == null) {
+    if (snake == null || snake.size() == 0 || board == null) {
       throw new IllegalArgumentException("Invalid lists passed.");
     }
-    int willRun = int(random(10)) + 1;
+    int willRun = board.getRandom().nextInt(10) + 1;
     for (int i = 0; i < willRun; i++) {
-      foods.add(new DefaultFoodSpace());
+      board.addFood(board.newFood(FoodType.DEFAULT));
     }
     return FoodType.EXPLODER;
   }
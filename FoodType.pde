@@ -1,5 +1,3 @@
-import java.util.Random;
- 
 /**
  * Represents the different types of food.
  */
@@ -20,12 +18,11 @@ public static enum FoodType {
   }
   
   /**
-   * Uses a RNG to determine if the food will spawn.
+   * Returns the rate at which this food spawns, as a one in spawnRate chance.
    *
-   * @return true if it will spawn, false otherwise
+   * @return the spawn rate
    */
-  public boolean willSpawn() {
-    Random rand = new Random();
-    return rand.nextInt(this.spawnRate) < 1;
+  public int getSpawnRate() {
+    return this.spawnRate;
   }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents turns entered with the keyboard, waiting for the simulation to take
+ * them. A bounded ring buffer without locks, for one thread adding turns and one
+ * thread taking them. Each tick takes the first waiting turn that is valid for the
+ * snake, dropping any before it that aren't, and leaves the rest for later ticks,
+ * so quick presses between two ticks are not lost.
+ */
+public class InputQueue implements InputSource {
+  private final Direction[] turns;
+  private final int mask;
+  private final AtomicInteger head = new AtomicInteger();
+  private final AtomicInteger tail = new AtomicInteger();
+
+  /**
+   * Constructs an empty {@code InputQueue}.
+   *
+   * @param capacity    the most turns that can wait at once, a power of two
+   * @throws IllegalArgumentException if the capacity is not a positive power of two
+   */
+  public InputQueue(int capacity) throws IllegalArgumentException {
+    if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+      throw new IllegalArgumentException("Invalid capacity.");
+    }
+    this.turns = new Direction[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Adds a turn to the end of the queue. Only called from the thread handling input.
+   *
+   * @param dir    the direction to turn
+   * @return true if the turn was added, false if the queue is full
+   * @throws IllegalArgumentException if the given {@code Direction} is null
+   */
+  public boolean offer(Direction dir) throws IllegalArgumentException {
+    if (dir == null) {
+      throw new IllegalArgumentException("Can't add null.");
+    }
+    int t = tail.get();
+    if (t - head.get() == turns.length) {
+      return false;
+    }
+    turns[t & mask] = dir;
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * Drops every waiting turn. Only called from the thread taking turns.
+   */
+  public void clear() {
+    int h = head.get();
+    int t = tail.get();
+    while (h != t) {
+      turns[h & mask] = null;
+      h++;
+    }
+    head.lazySet(h);
+  }
+
+  /**
+   * Returns the number of turns waiting.
+   *
+   * @return the number of waiting turns
+   */
+  public int size() {
+    return tail.get() - head.get();
+  }
+
+  @Override
+  public Direction nextTurn(SnakeBody snake, Board board) {
+    Direction current = snake.getDirection();
+    Direction next = null;
+    int h = head.get();
+    int t = tail.get();
+    while (h != t && next == null) {
+      Direction d = turns[h & mask];
+      turns[h & mask] = null;
+      h++;
+      if (!d.equals(current) && current.validTurn(d)) {
+        next = d;
+      }
+    }
+    head.lazySet(h);
+    return next;
+  }
+}
\ No newline at end of file
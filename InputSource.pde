@@ -0,0 +1,13 @@
+/**
+ * Represents a source of turns for a snake, such as the keyboard or a bot.
+ */
+public interface InputSource {
+  /**
+   * Returns the direction to turn the given snake on this tick.
+   *
+   * @param snake    the snake being steered
+   * @param board    the board the snake is on
+   * @return the direction to turn, or null to keep going the same way
+   */
+  Direction nextTurn(SnakeBody snake, Board board);
+}
\ No newline at end of file
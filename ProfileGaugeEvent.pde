@@ -0,0 +1,18 @@
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Represents the value of one gauge of the game at the end of a window of a
+ * {@code ProfileReporter}, as a Java Flight Recorder event.
+ */
+@Name("snake.Gauge")
+@Label("Gauge")
+@Category("Snake")
+public class ProfileGaugeEvent extends jdk.jfr.Event {
+  @Label("Gauge")
+  String gauge;
+
+  @Label("Value")
+  long value;
+}
\ No newline at end of file
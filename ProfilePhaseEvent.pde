@@ -0,0 +1,35 @@
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Represents one phase of the game over one window of a {@code ProfileReporter},
+ * as a Java Flight Recorder event.
+ */
+@Name("snake.Phase")
+@Label("Phase")
+@Category("Snake")
+public class ProfilePhaseEvent extends jdk.jfr.Event {
+  @Label("Phase")
+  String phase;
+
+  @Label("Count")
+  long count;
+
+  @Label("Mean")
+  @Timespan
+  long mean;
+
+  @Label("50th Percentile")
+  @Timespan
+  long p50;
+
+  @Label("99th Percentile")
+  @Timespan
+  long p99;
+
+  @Label("Max")
+  @Timespan
+  long max;
+}
\ No newline at end of file
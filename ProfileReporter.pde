@@ -0,0 +1,208 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Exports what a {@code Profiler} records on its own thread, so writing never holds
+ * up a tick or a frame. Once a window, while the profiler is enabled, it writes a
+ * row to a CSV file and emits a {@code ProfilePhaseEvent} for every phase that ran
+ * and a {@code ProfileGaugeEvent} for every gauge, which show up in any Java Flight
+ * Recorder recording that is running. The CSV rolls over to a new file once it
+ * grows past a size, and only the newest few files in the directory are kept,
+ * including ones left there by earlier runs.
+ */
+public class ProfileReporter extends Thread {
+  private final Profiler profiler;
+  private final ProfileWindow window;
+  private final File dir;
+  private final long intervalNanos;
+  private final long maxBytes;
+  private final int maxFiles;
+  private final ArrayDeque<File> files = new ArrayDeque<File>();
+  private final StringBuilder row = new StringBuilder();
+  private BufferedWriter out;
+  private long written;
+  private boolean writing = true;
+  private volatile boolean stopped;
+
+  /**
+   * Constructs a {@code ProfileReporter}.
+   *
+   * @param profiler      the profiler to export
+   * @param dir           the directory to write CSV files to
+   * @param interval      how long each window lasts, in milliseconds
+   * @param maxBytes      how big a CSV file can grow before rolling over to a new one
+   * @param maxFiles      how many CSV files to keep, counting ones already in the directory
+   * @throws IllegalArgumentException if the profiler or directory is null, or any
+   *                                  of the limits are not positive
+   */
+  public ProfileReporter(Profiler profiler, File dir, int interval, long maxBytes, int maxFiles)
+      throws IllegalArgumentException {
+    super("profiler");
+    if (profiler == null || dir == null || interval <= 0 || maxBytes <= 0 || maxFiles <= 0) {
+      throw new IllegalArgumentException("Invalid reporter.");
+    }
+    this.profiler = profiler;
+    this.window = new ProfileWindow(profiler);
+    this.dir = dir;
+    this.intervalNanos = interval * 1000000L;
+    this.maxBytes = maxBytes;
+    this.maxFiles = maxFiles;
+    findOldFiles();
+    setDaemon(true);
+  }
+
+  /**
+   * Stops exporting and ends the thread, closing the current CSV file.
+   */
+  public void shutdown() {
+    stopped = true;
+    LockSupport.unpark(this);
+  }
+
+  @Override
+  public void run() {
+    long next = System.nanoTime() + intervalNanos;
+    while (!stopped) {
+      long now = System.nanoTime();
+      if (now < next) {
+        LockSupport.parkNanos(this, next - now);
+        continue;
+      }
+      next += intervalNanos;
+      window.advance();
+      if (profiler.isEnabled()) {
+        emitEvents();
+        writeRow();
+      }
+    }
+    close();
+  }
+
+  /**
+   * Helper to the run() function. Commits an event for every phase that ran this
+   * window and every gauge, if flight recording is on for them.
+   */
+  private void emitEvents() {
+    ProfilePhaseEvent phase = new ProfilePhaseEvent();
+    if (phase.isEnabled()) {
+      for (int p = 0; p < profiler.phaseCount(); p++) {
+        if (window.count(p) > 0) {
+          phase = new ProfilePhaseEvent();
+          phase.phase = profiler.phaseName(p);
+          phase.count = window.count(p);
+          phase.mean = window.mean(p);
+          phase.p50 = window.p50(p);
+          phase.p99 = window.p99(p);
+          phase.max = window.max(p);
+          phase.commit();
+        }
+      }
+    }
+    ProfileGaugeEvent gauge = new ProfileGaugeEvent();
+    if (gauge.isEnabled()) {
+      for (int g = 0; g < profiler.gaugeCount(); g++) {
+        gauge = new ProfileGaugeEvent();
+        gauge.gauge = profiler.gaugeName(g);
+        gauge.value = profiler.getGauge(g);
+        gauge.commit();
+      }
+    }
+  }
+
+  /**
+   * Helper to the run() function. Writes this window as a row of the CSV file,
+   * rolling over to a new file first if the current one is full. Stops writing
+   * for good if a file can't be written.
+   */
+  private void writeRow() {
+    if (!writing) {
+      return;
+    }
+    row.setLength(0);
+    row.append(System.currentTimeMillis()).append(',').append(window.getNanos() / 1000000);
+    for (int p = 0; p < profiler.phaseCount(); p++) {
+      row.append(',').append(window.count(p)).append(',').append(window.mean(p))
+          .append(',').append(window.p50(p)).append(',').append(window.p99(p))
+          .append(',').append(window.max(p));
+    }
+    for (int g = 0; g < profiler.gaugeCount(); g++) {
+      row.append(',').append(profiler.getGauge(g));
+    }
+    row.append('\n');
+    try {
+      if (out == null || written >= maxBytes) {
+        roll();
+      }
+      out.write(row.toString());
+      out.flush();
+      written += row.length();
+    } catch (IOException e) {
+      println("Stopped writing profile: " + e.getMessage());
+      writing = false;
+      close();
+    }
+  }
+
+  /**
+   * Helper to the writeRow() function. Closes the current CSV file and starts a
+   * new one with a header, deleting the oldest files past the limit.
+   */
+  private void roll() throws IOException {
+    close();
+    dir.mkdirs();
+    File file = new File(dir, "profile-" + System.currentTimeMillis() + ".csv");
+    out = new BufferedWriter(new FileWriter(file));
+    files.addLast(file);
+    while (files.size() > maxFiles) {
+      files.removeFirst().delete();
+    }
+    StringBuilder header = new StringBuilder("millis,window_ms");
+    for (int p = 0; p < profiler.phaseCount(); p++) {
+      String name = profiler.phaseName(p);
+      header.append(',').append(name).append("_count,").append(name).append("_mean_ns,")
+          .append(name).append("_p50_ns,").append(name).append("_p99_ns,").append(name).append("_max_ns");
+    }
+    for (int g = 0; g < profiler.gaugeCount(); g++) {
+      header.append(',').append(profiler.gaugeName(g));
+    }
+    header.append('\n');
+    out.write(header.toString());
+    written = header.length();
+  }
+
+  /**
+   * Helper to the constructor. Adds the CSV files already in the directory to the
+   * files kept, oldest first, so they count towards the limit. Their names hold the
+   * time they were started, so sorting them by name puts them in order.
+   */
+  private void findOldFiles() {
+    File[] existing = dir.listFiles();
+    if (existing == null) {
+      return;
+    }
+    Arrays.sort(existing);
+    for (File file : existing) {
+      String name = file.getName();
+      if (name.startsWith("profile-") && name.endsWith(".csv")) {
+        files.addLast(file);
+      }
+    }
+  }
+
+  /**
+   * Closes the current CSV file, if one is open.
+   */
+  private void close() {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.close();
+    } catch (IOException e) {
+      println("Couldn't close profile: " + e.getMessage());
+    }
+    out = null;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+/**
+ * Represents what a {@code Profiler} recorded between two reads of it. Each reader
+ * keeps its own window, so the overlay and the exporter don't reset each other.
+ * Percentiles come from the histogram buckets, so they are the top of the bucket
+ * the percentile falls in, within a factor of two of the real time.
+ */
+public class ProfileWindow {
+  private final Profiler profiler;
+  private final long[][] last;
+  private final long[] now = new long[Profiler.BUCKETS + 2];
+  private final long[] counts;
+  private final long[] means;
+  private final long[] p50s;
+  private final long[] p99s;
+  private final long[] maxes;
+  private long started;
+  private long nanos;
+
+  /**
+   * Constructs a {@code ProfileWindow} starting from what the profiler has recorded so far.
+   *
+   * @param profiler    the profiler to read
+   * @throws IllegalArgumentException if the given {@code Profiler} is null
+   */
+  public ProfileWindow(Profiler profiler) throws IllegalArgumentException {
+    if (profiler == null) {
+      throw new IllegalArgumentException("Invalid profiler.");
+    }
+    this.profiler = profiler;
+    int phases = profiler.phaseCount();
+    this.last = new long[phases][Profiler.BUCKETS + 2];
+    this.counts = new long[phases];
+    this.means = new long[phases];
+    this.p50s = new long[phases];
+    this.p99s = new long[phases];
+    this.maxes = new long[phases];
+    for (int p = 0; p < phases; p++) {
+      profiler.copyPhase(p, last[p]);
+    }
+    this.started = System.nanoTime();
+  }
+
+  /**
+   * Works out what was recorded since the last advance, or since the window was
+   * made, and starts the next window from now.
+   */
+  public void advance() {
+    long time = System.nanoTime();
+    nanos = time - started;
+    started = time;
+    for (int p = 0; p < counts.length; p++) {
+      profiler.copyPhase(p, now);
+      long[] before = last[p];
+      long count = now[Profiler.BUCKETS] - before[Profiler.BUCKETS];
+      long total = now[Profiler.BUCKETS + 1] - before[Profiler.BUCKETS + 1];
+      counts[p] = count;
+      means[p] = (count > 0) ? total / count : 0;
+      long bucketed = 0;
+      for (int b = 0; b < Profiler.BUCKETS; b++) {
+        bucketed += now[b] - before[b];
+      }
+      p50s[p] = percentile(before, bucketed, 0.5);
+      p99s[p] = percentile(before, bucketed, 0.99);
+      maxes[p] = percentile(before, bucketed, 1);
+      System.arraycopy(now, 0, before, 0, now.length);
+    }
+  }
+
+  /**
+   * Returns how long the last window lasted, in nanoseconds.
+   */
+  public long getNanos() {
+    return this.nanos;
+  }
+
+  public long count(int phase) {
+    return counts[phase];
+  }
+
+  public long mean(int phase) {
+    return means[phase];
+  }
+
+  public long p50(int phase) {
+    return p50s[phase];
+  }
+
+  public long p99(int phase) {
+    return p99s[phase];
+  }
+
+  public long max(int phase) {
+    return maxes[phase];
+  }
+
+  /**
+   * Helper to the advance() function. Returns the top of the bucket that the given
+   * fraction of the times recorded this window fall at or below, by walking the
+   * difference between the histogram now and the one before. The buckets are
+   * counted separately from the total, since a time can be recorded between the two.
+   */
+  private long percentile(long[] before, long count, double fraction) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(count * fraction));
+    long seen = 0;
+    for (int b = 0; b < Profiler.BUCKETS; b++) {
+      seen += now[b] - before[b];
+      if (seen >= rank) {
+        return (b == 0) ? 0 : (1L << b) - 1;
+      }
+    }
+    return (1L << (Profiler.BUCKETS - 1)) - 1;
+  }
+}
\ No newline at end of file
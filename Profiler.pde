@@ -0,0 +1,192 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Times the phases of a tick and a frame, and keeps gauges of the game's size,
+ * without locks so the ticking and drawing threads can both record into it.
+ * Each phase has a histogram of how long it took, with one bucket per power of
+ * two nanoseconds, along with its count and total time. Everything is counted
+ * from when the profiler was made, and readers work out what happened between
+ * two reads themselves with a {@code ProfileWindow}.
+ *
+ * A phase is timed by taking start() before it and lap() after it. While the
+ * profiler is disabled, start() returns 0 without reading the clock and lap()
+ * returns straight away when given 0, so the calls can be left in the hot paths.
+ */
+public class Profiler {
+  public static final int TICK = 0;
+  public static final int COLLISION = 1;
+  public static final int TIMER = 2;
+  public static final int TURN = 3;
+  public static final int MOVE = 4;
+  public static final int PUBLISH = 5;
+  public static final int FRAME = 6;
+  public static final int BACKGROUND = 7;
+  public static final int BOARD = 8;
+  public static final int BLIT = 9;
+  public static final int SCORE = 10;
+  public static final int SCREEN = 11;
+  public static final int HUD = 12;
+  public static final int EAT = 13;
+
+  public static final int LENGTH = 0;
+  public static final int FOOD = 1;
+  public static final int SLIME = 2;
+  public static final int TURNS = 3;
+  public static final int FRAME_BYTES = 4;
+
+  public static final int BUCKETS = 48;
+  private static final int STRIDE = BUCKETS + 2;
+
+  private final FoodType[] types = FoodType.values();
+  private final String[] phaseNames;
+  private final String[] gaugeNames = {"length", "food", "slime", "turns", "frameBytes"};
+  private final AtomicLongArray phases;
+  private final AtomicLongArray gauges = new AtomicLongArray(gaugeNames.length);
+  private volatile boolean enabled;
+
+  /**
+   * Constructs a disabled {@code Profiler}.
+   */
+  public Profiler() {
+    String[] names = {"tick", "collision", "timer", "turn", "move", "publish", "frame",
+        "background", "board", "blit", "score", "screen", "hud"};
+    phaseNames = new String[EAT + types.length];
+    for (int i = 0; i < EAT; i++) {
+      phaseNames[i] = names[i];
+    }
+    for (FoodType t : types) {
+      phaseNames[EAT + t.ordinal()] = "eat" + t.name().charAt(0) + t.name().substring(1).toLowerCase();
+    }
+    phases = new AtomicLongArray(phaseNames.length * STRIDE);
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the number of phases timed, including one for eating each type of food.
+   */
+  public int phaseCount() {
+    return phaseNames.length;
+  }
+
+  public int gaugeCount() {
+    return gaugeNames.length;
+  }
+
+  /**
+   * Returns the name of the given phase.
+   *
+   * @param phase    one of the phases, or EAT plus the ordinal of a {@code FoodType}
+   * @return the name of the phase
+   */
+  public String phaseName(int phase) {
+    return phaseNames[phase];
+  }
+
+  /**
+   * Returns the name of the given gauge.
+   *
+   * @param gauge    one of LENGTH, FOOD, SLIME, TURNS or FRAME_BYTES
+   * @return the name of the gauge
+   */
+  public String gaugeName(int gauge) {
+    return gaugeNames[gauge];
+  }
+
+  /**
+   * Returns the time to start timing a phase from.
+   *
+   * @return the current time in nanoseconds, or 0 if the profiler is disabled
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records the time since the given start against the given phase.
+   *
+   * @param phase    the phase to record
+   * @param start    the time the phase started, from start() or an earlier lap()
+   * @return the current time, to start timing the next phase from, or 0 if the
+   *         phase wasn't timed
+   */
+  public long lap(int phase, long start) {
+    if (start == 0) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    record(phase, now - start);
+    return now;
+  }
+
+  /**
+   * Records the time since the given start against eating the given type of food.
+   *
+   * @param type     the type of food eaten
+   * @param start    the time eating started, from start() or an earlier lap()
+   * @return the current time, or 0 if eating wasn't timed
+   */
+  public long lapEat(FoodType type, long start) {
+    return lap(EAT + type.ordinal(), start);
+  }
+
+  /**
+   * Adds one time to the given phase.
+   *
+   * @param phase    the phase to record
+   * @param nanos    how long the phase took
+   */
+  public void record(int phase, long nanos) {
+    int base = phase * STRIDE;
+    phases.incrementAndGet(base + bucket(nanos));
+    phases.incrementAndGet(base + BUCKETS);
+    phases.addAndGet(base + BUCKETS + 1, nanos);
+  }
+
+  /**
+   * Sets the given gauge to the given value, if the profiler is enabled.
+   *
+   * @param gauge    one of LENGTH, FOOD, SLIME, TURNS or FRAME_BYTES
+   * @param value    the current value of the gauge
+   */
+  public void gauge(int gauge, long value) {
+    if (enabled) {
+      gauges.lazySet(gauge, value);
+    }
+  }
+
+  public long getGauge(int gauge) {
+    return gauges.get(gauge);
+  }
+
+  /**
+   * Copies the histogram of the given phase into the given array, followed by
+   * the number of times recorded and their total in nanoseconds.
+   *
+   * @param phase    the phase to copy
+   * @param into     an array of at least BUCKETS + 2 longs
+   */
+  public void copyPhase(int phase, long[] into) {
+    int base = phase * STRIDE;
+    for (int i = 0; i < STRIDE; i++) {
+      into[i] = phases.get(base + i);
+    }
+  }
+
+  /**
+   * Returns the bucket for the given time, which holds times from 2^(b - 1)
+   * up to 2^b - 1 nanoseconds. Bucket 0 holds times of 0 or less.
+   */
+  private int bucket(long nanos) {
+    if (nanos <= 0) {
+      return 0;
+    }
+    return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+  }
+}
\ No newline at end of file
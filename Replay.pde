@@ -0,0 +1,133 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Represents one replay, read from a buffer holding it as written by a
+ * {@code ReplayWriter}. Only the header and footer are read up front; the records
+ * are read as the replay is played.
+ */
+public class Replay {
+  private final ByteBuffer data;
+  private final long seed;
+  private final int boardSize;
+  private final int keyframeInterval;
+  private final int settings;
+  private final int records;
+  private final int footer;
+
+  /**
+   * Constructs a {@code Replay}.
+   *
+   * @param data    a buffer holding exactly one replay
+   * @throws IllegalArgumentException if the buffer doesn't hold a finished replay
+   */
+  public Replay(ByteBuffer data) throws IllegalArgumentException {
+    if (data == null || data.limit() < ReplayWriter.HEADER_SIZE
+        || data.getInt(0) != ReplayWriter.MAGIC || data.getInt(4) != ReplayWriter.VERSION
+        || data.getLong(8) != data.limit()) {
+      throw new IllegalArgumentException("Invalid replay.");
+    }
+    this.data = data;
+    this.footer = data.getInt(16);
+    this.seed = data.getLong(20);
+    this.boardSize = data.getInt(28);
+    this.keyframeInterval = data.getInt(32);
+    this.settings = ReplayWriter.HEADER_SIZE;
+    this.records = settings + 4 * (5 + data.getInt(settings + 16));
+  }
+
+  public long getSeed() {
+    return this.seed;
+  }
+
+  public int getBoardSize() {
+    return this.boardSize;
+  }
+
+  public int getKeyframeInterval() {
+    return this.keyframeInterval;
+  }
+
+  /**
+   * Returns the number of ticks the game lasted.
+   *
+   * @return the final tick count
+   */
+  public int getTicks() {
+    return data.getInt(footer);
+  }
+
+  /**
+   * Returns the final score of the game, or -1 if the game was abandoned.
+   *
+   * @return the final score
+   */
+  public int getScore() {
+    return data.getInt(footer + 4);
+  }
+
+  public int keyframeCount() {
+    return data.getInt(footer + 8);
+  }
+
+  public int keyframeTick(int i) {
+    return data.getInt(footer + 12 + 8 * i);
+  }
+
+  /**
+   * Returns where the keyframe at the given index starts, from the start of the replay.
+   *
+   * @param i      the index of the keyframe
+   * @return the offset of the keyframe's record
+   */
+  public int keyframeOffset(int i) {
+    return data.getInt(footer + 16 + 8 * i);
+  }
+
+  /**
+   * Returns the index of the last keyframe at or before the given tick.
+   *
+   * @param tick   the tick to look for
+   * @return the index of the keyframe, or -1 if there is none that early
+   */
+  public int keyframeBefore(int tick) {
+    int lo = 0;
+    int hi = keyframeCount() - 1;
+    int found = -1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (keyframeTick(mid) <= tick) {
+        found = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Constructs a game with the same board size and settings as the recorded one.
+   *
+   * @param input    where turns for the snake come from
+   * @return the new game
+   */
+  public SnakeEngine newEngine(InputSource input) {
+    SnakeEngine engine = new SnakeEngine(boardSize, seed, input);
+    ByteBuffer in = data.duplicate();
+    in.position(settings);
+    engine.readSettings(in);
+    return engine;
+  }
+
+  /**
+   * Returns a new view of the records, positioned at the first one.
+   *
+   * @return the records
+   */
+  public ByteBuffer records() {
+    ByteBuffer in = data.duplicate();
+    in.position(records);
+    in.limit(footer);
+    return in;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Records seeded bot games into a replay file, and plays every replay in a file back
+ * to check that the engine still plays them the same way. Used to keep archives of
+ * games for reproducing rare bugs, and to regression-test the engine at scale.
+ */
+public class ReplayArchive {
+  private final File file;
+
+  /**
+   * Constructs a {@code ReplayArchive}.
+   *
+   * @param file    the replay file
+   * @throws IllegalArgumentException if the file is null
+   */
+  public ReplayArchive(File file) throws IllegalArgumentException {
+    if (file == null) {
+      throw new IllegalArgumentException("Invalid replay file.");
+    }
+    this.file = file;
+  }
+
+  /**
+   * Plays the given number of games with bots, seeded one after another from the
+   * first seed, and adds their replays to the end of the file.
+   *
+   * @param firstSeed          the seed of the first game
+   * @param games              the number of games to play
+   * @param boardSize          the number of spaces across and down the board
+   * @param maxTicks           the most ticks a single game may run for
+   * @param keyframeInterval   the number of ticks between keyframes
+   * @return a report of how much was recorded
+   * @throws IOException if the file can't be written
+   */
+  public String record(long firstSeed, int games, int boardSize, int maxTicks,
+                       int keyframeInterval) throws IOException {
+    long before = file.length();
+    long start = System.nanoTime();
+    long ticks = 0;
+    ReplayWriter writer = new ReplayWriter(file, true, keyframeInterval);
+    try {
+      for (long seed = firstSeed; seed < firstSeed + games; seed++) {
+        BotInput bot = new BotInput(new Random(~seed));
+        SnakeEngine engine = new SnakeEngine(boardSize, seed, bot);
+        ReplayRecorder recorder = new ReplayRecorder(engine, writer);
+        recorder.start(seed, bot);
+        while (!engine.isOver() && engine.getTicks() < maxTicks) {
+          recorder.tick();
+        }
+        recorder.stop();
+        ticks += engine.getTicks();
+      }
+    } finally {
+      writer.close();
+    }
+    long bytes = file.length() - before;
+    return String.format("%d games, %d ticks in %.2f s: %d bytes, %.1f bytes/game, %.2f bytes/tick",
+        games, ticks, (System.nanoTime() - start) / 1e9, bytes, (double) bytes / games,
+        (double) bytes / ticks);
+  }
+
+  /**
+   * Plays every replay in the file back without drawing, checking each against its
+   * keyframes and final score, and prints the seed of any that play differently.
+   * Each replay that plays the same is then also jumped into past every keyframe,
+   * checking that loading the keyframe and playing on ends up the same as playing
+   * from the start.
+   *
+   * @return a report of how many replays were played, how fast, and how many
+   *         jumps were checked
+   * @throws IOException if the file can't be read
+   */
+  public String verify() throws IOException {
+    long nanos = 0;
+    long ticks = 0;
+    int replays = 0;
+    int failed = 0;
+    int seeks = 0;
+    ReplayReader reader = new ReplayReader(file);
+    try {
+      while (reader.hasNext()) {
+        Replay replay = reader.next();
+        ReplayPlayer player = new ReplayPlayer(replay);
+        long start = System.nanoTime();
+        int diverged = player.verify();
+        nanos += System.nanoTime() - start;
+        if (diverged >= 0) {
+          println("Replay " + replays + " (seed " + replay.getSeed() + ") differs at tick " + diverged);
+          failed++;
+        } else {
+          diverged = player.verifySeeks();
+          seeks += replay.keyframeCount() + 1;
+          if (diverged >= 0) {
+            println("Replay " + replays + " (seed " + replay.getSeed()
+                + ") differs after jumping to tick " + diverged);
+            failed++;
+          }
+        }
+        replays++;
+        ticks += replay.getTicks();
+      }
+      if (reader.getSkipped() > 0) {
+        println("Skipped " + reader.getSkipped() + " unfinished replays");
+      }
+    } finally {
+      reader.close();
+    }
+    double seconds = nanos / 1e9;
+    return String.format("%d replays, %d failed, %d ticks in %.2f s: %.0f ticks/sec, %.0fx real time, %d jumps checked",
+        replays, failed, ticks, seconds, ticks / seconds,
+        ticks / seconds / SnakeEngine.DEFAULT_TICK_RATE, seeks);
+  }
+}
\ No newline at end of file
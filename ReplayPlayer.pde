@@ -0,0 +1,232 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Plays a {@code Replay} back through a {@code SnakeEngine}, without drawing, by
+ * giving the snake the recorded turns on the recorded ticks. Can jump to any tick
+ * by loading the last keyframe before it and playing on from there.
+ */
+public class ReplayPlayer implements InputSource {
+  private final Direction[] dirs = Direction.values();
+  private final Replay replay;
+  private final SnakeEngine engine;
+  private ByteBuffer records;
+  private ByteBuffer scratch = ByteBuffer.allocate(1 << 12);
+  private int recordTick;
+  private int nextTick;
+  private Direction nextTurn;
+
+  /**
+   * Constructs a {@code ReplayPlayer}, ready to play from the start of the game.
+   *
+   * @param replay    the replay to play
+   * @throws IllegalArgumentException if the given {@code Replay} is null
+   */
+  public ReplayPlayer(Replay replay) throws IllegalArgumentException {
+    if (replay == null) {
+      throw new IllegalArgumentException("Invalid replay.");
+    }
+    this.replay = replay;
+    this.engine = replay.newEngine(this);
+    rewind();
+  }
+
+  public SnakeEngine getEngine() {
+    return this.engine;
+  }
+
+  /**
+   * Goes back to the start of the game.
+   */
+  public void rewind() {
+    engine.reset(replay.getSeed());
+    records = replay.records();
+    recordTick = 0;
+    readNext();
+  }
+
+  /**
+   * Moves the game to the given tick, or to the end if the game was over sooner.
+   * Starts from the last keyframe before the tick unless the game is already
+   * closer to it.
+   *
+   * @param tick    the number of ticks played to stop at
+   */
+  public void seek(int tick) {
+    int k = replay.keyframeBefore(tick);
+    int from = (k < 0) ? 0 : replay.keyframeTick(k);
+    if (tick < engine.getTicks() || from > engine.getTicks()) {
+      if (k < 0) {
+        rewind();
+      } else {
+        loadKeyframe(k);
+      }
+    }
+    playTo(tick);
+  }
+
+  /**
+   * Plays the game on to the end. A game that was abandoned stops where its
+   * recording stopped.
+   */
+  public void playToEnd() {
+    seek(replay.getTicks());
+    if (replay.getScore() >= 0) {
+      engine.tick();
+    }
+  }
+
+  /**
+   * Plays the game from the start, checking the state of the game at every keyframe
+   * against the recorded one, and the final ticks and score against the recorded ones.
+   *
+   * @return the tick where the game first differs from the recording, or -1 if it never does
+   */
+  public int verify() {
+    rewind();
+    for (int k = 0; k < replay.keyframeCount(); k++) {
+      playTo(replay.keyframeTick(k));
+      if (engine.getTicks() != replay.keyframeTick(k) || !matchesKeyframe(k)) {
+        return engine.getTicks();
+      }
+    }
+    playTo(replay.getTicks());
+    if (engine.getTicks() != replay.getTicks()) {
+      return engine.getTicks();
+    }
+    if (replay.getScore() >= 0) {
+      engine.tick();
+      if (!engine.isOver() || engine.getScore() != replay.getScore()) {
+        return engine.getTicks();
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Plays the game from the start, and at a tick past each keyframe checks it
+   * against a second player that seeks to the same tick, loading the keyframe and
+   * playing on from there. Checks the end of the game the same way.
+   *
+   * @return the tick where the two first differ, or -1 if they never do
+   */
+  public int verifySeeks() {
+    ReplayPlayer seeker = new ReplayPlayer(replay);
+    rewind();
+    for (int k = 0; k < replay.keyframeCount(); k++) {
+      int next = (k + 1 < replay.keyframeCount()) ? replay.keyframeTick(k + 1) : replay.getTicks();
+      int tick = (replay.keyframeTick(k) + next + 1) / 2;
+      playTo(tick);
+      seeker.seek(tick);
+      if (!currentState().equals(seeker.currentState())) {
+        return engine.getTicks();
+      }
+    }
+    playToEnd();
+    seeker.playToEnd();
+    if (!currentState().equals(seeker.currentState())) {
+      return engine.getTicks();
+    }
+    return -1;
+  }
+
+  @Override
+  public Direction nextTurn(SnakeBody snake, Board board) {
+    if (nextTurn == null || engine.getTicks() != nextTick) {
+      return null;
+    }
+    Direction turn = nextTurn;
+    readNext();
+    return turn;
+  }
+
+  /**
+   * Plays the game on from where it is to the given tick, stopping early if it is over.
+   */
+  private void playTo(int tick) {
+    while (engine.getTicks() < tick && !engine.isOver()) {
+      engine.tick();
+    }
+  }
+
+  /**
+   * Helper to the seek() function. Loads the keyframe at the given index and carries
+   * on reading records from just after it.
+   */
+  private void loadKeyframe(int k) {
+    records = replay.records();
+    records.position(replay.keyframeOffset(k));
+    getVarint(records);
+    int length = (int) getVarint(records);
+    ByteBuffer state = records.duplicate();
+    state.limit(state.position() + length);
+    engine.readState(state);
+    records.position(records.position() + length);
+    recordTick = replay.keyframeTick(k);
+    readNext();
+  }
+
+  /**
+   * Helper to the verify() function. Checks the game against the keyframe at the given index.
+   */
+  private boolean matchesKeyframe(int k) {
+    ByteBuffer current = currentState();
+    ByteBuffer stored = replay.records();
+    stored.position(replay.keyframeOffset(k));
+    getVarint(stored);
+    int length = (int) getVarint(stored);
+    stored.limit(stored.position() + length);
+    return current.equals(stored);
+  }
+
+  /**
+   * Helper to the verify functions. Writes the state of the game into a buffer
+   * kept for it, and returns the buffer ready to read.
+   */
+  private ByteBuffer currentState() {
+    if (scratch.capacity() < engine.stateSize()) {
+      scratch = ByteBuffer.allocate(Math.max(engine.stateSize(), scratch.capacity() * 2));
+    }
+    scratch.clear();
+    engine.writeState(scratch);
+    scratch.flip();
+    return scratch;
+  }
+
+  /**
+   * Reads records up to the next turn, skipping keyframes, and remembers the turn
+   * and its tick. Remembers no turn once the END record is reached.
+   */
+  private void readNext() {
+    nextTurn = null;
+    while (records.hasRemaining()) {
+      long record = getVarint(records);
+      recordTick += (int) (record >>> 4);
+      int kind = (int) (record & 3);
+      if (kind == ReplayWriter.INPUT) {
+        nextTick = recordTick;
+        nextTurn = dirs[(int) (record >>> 2) & 3];
+        return;
+      } else if (kind == ReplayWriter.KEYFRAME) {
+        int length = (int) getVarint(records);
+        records.position(records.position() + length);
+      } else {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Reads an unsigned varint written by {@code ReplayWriter}.
+   */
+  private long getVarint(ByteBuffer in) {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+/**
+ * Represents a random number generator whose state can be saved and restored,
+ * so a replay can pick a game up from the middle. Produces exactly the same
+ * numbers as {@code java.util.Random} for the same seed.
+ */
+public class ReplayRandom extends Random {
+  private static final long MULTIPLIER = 0x5DEECE66DL;
+  private static final long ADDEND = 0xBL;
+  private static final long MASK = (1L << 48) - 1;
+
+  private long state;
+
+  /**
+   * Constructs a {@code ReplayRandom}.
+   *
+   * @param seed    the initial seed
+   */
+  public ReplayRandom(long seed) {
+    super(seed);
+  }
+
+  @Override
+  public void setSeed(long seed) {
+    super.setSeed(seed);
+    this.state = (seed ^ MULTIPLIER) & MASK;
+  }
+
+  @Override
+  protected int next(int bits) {
+    state = (state * MULTIPLIER + ADDEND) & MASK;
+    return (int) (state >>> (48 - bits));
+  }
+
+  public long getState() {
+    return this.state;
+  }
+
+  public void setState(long state) {
+    this.state = state & MASK;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the replays in a file one after another, through memory-mapped windows of
+ * the file, so archives far larger than the heap can be scanned. Each window holds
+ * up to a gigabyte, and a new one is mapped whenever the next replay runs past
+ * the end of the current one. A replay that was never ended, such as one cut off
+ * by a crash, is skipped by searching on for the header of the next one.
+ */
+public class ReplayReader {
+  private static final long WINDOW_SIZE = 1L << 30;
+
+  private final FileChannel channel;
+  private final long size;
+  private MappedByteBuffer window;
+  private long windowStart;
+  private long position;
+  private int skipped;
+
+  /**
+   * Constructs a {@code ReplayReader}, starting at the first replay in the file.
+   *
+   * @param file    the file to read
+   * @throws IOException if the file can't be opened
+   * @throws IllegalArgumentException if the file is null
+   */
+  public ReplayReader(File file) throws IOException, IllegalArgumentException {
+    if (file == null) {
+      throw new IllegalArgumentException("Invalid replay file.");
+    }
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    this.size = channel.size();
+  }
+
+  /**
+   * Checks whether there is another finished replay to read.
+   *
+   * @return true if there is another replay, false otherwise
+   * @throws IOException if the file can't be read
+   */
+  public boolean hasNext() throws IOException {
+    while (size - position >= ReplayWriter.HEADER_SIZE) {
+      if (isFinished(position)) {
+        return true;
+      }
+      skipped++;
+      position = nextHeader(position + 1);
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of unfinished or damaged replays skipped so far.
+   *
+   * @return the number of replays skipped
+   */
+  public int getSkipped() {
+    return this.skipped;
+  }
+
+  /**
+   * Returns the next replay in the file. The replay reads straight from the mapped
+   * file, so it should not be used after this reader is closed.
+   *
+   * @return the next replay
+   * @throws IOException if the file can't be read
+   * @throws IllegalStateException if there are no more finished replays
+   */
+  public Replay next() throws IOException, IllegalStateException {
+    if (!hasNext()) {
+      throw new IllegalStateException("No more replays.");
+    }
+    long length = window.getLong((int) (position - windowStart) + 8);
+    map(position, length);
+    ByteBuffer data = window.duplicate();
+    data.position((int) (position - windowStart));
+    data.limit((int) (position - windowStart + length));
+    position += length;
+    return new Replay(data.slice());
+  }
+
+  /**
+   * Closes the file.
+   *
+   * @throws IOException if the file can't be closed
+   */
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Helper to the hasNext() function. Checks whether a finished replay starts at
+   * the given offset.
+   */
+  private boolean isFinished(long start) throws IOException {
+    map(start, ReplayWriter.HEADER_SIZE);
+    int at = (int) (start - windowStart);
+    long length = window.getLong(at + 8);
+    return window.getInt(at) == ReplayWriter.MAGIC && length >= ReplayWriter.HEADER_SIZE
+        && length <= size - start;
+  }
+
+  /**
+   * Helper to the hasNext() function. Returns the offset of the next replay header
+   * at or after the given offset, or the end of the file if there isn't one.
+   */
+  private long nextHeader(long from) throws IOException {
+    for (long p = from; size - p >= ReplayWriter.HEADER_SIZE; p++) {
+      map(p, ReplayWriter.HEADER_SIZE);
+      if (window.getInt((int) (p - windowStart)) == ReplayWriter.MAGIC) {
+        return p;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Makes sure the given range of the file is inside the mapped window, mapping a
+   * new window starting at the range if it isn't.
+   */
+  private void map(long start, long length) throws IOException {
+    if (window != null && start >= windowStart
+        && start + length <= windowStart + window.capacity()) {
+      return;
+    }
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("Replay too large to map.");
+    }
+    windowStart = start;
+    window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+        Math.min(size - start, Math.max(WINDOW_SIZE, length)));
+  }
+}
\ No newline at end of file
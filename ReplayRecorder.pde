@@ -0,0 +1,86 @@
+import java.io.IOException;
+
+/**
+ * Plays a game while recording its replay. Sits between the game and its real
+ * source of turns, so every turn the snake is given is written down along with
+ * the tick it was given on.
+ */
+public class ReplayRecorder implements InputSource {
+  private final SnakeEngine engine;
+  private final ReplayWriter writer;
+  private InputSource input;
+  private Direction turn;
+
+  /**
+   * Constructs a {@code ReplayRecorder}.
+   *
+   * @param engine    the game to record
+   * @param writer    where to write replays
+   * @throws IllegalArgumentException if the given {@code SnakeEngine} or
+   *                                  {@code ReplayWriter} is null
+   */
+  public ReplayRecorder(SnakeEngine engine, ReplayWriter writer) throws IllegalArgumentException {
+    if (engine == null || writer == null) {
+      throw new IllegalArgumentException("Invalid engine or writer.");
+    }
+    this.engine = engine;
+    this.writer = writer;
+  }
+
+  /**
+   * Resets the game with the given seed and starts recording it.
+   *
+   * @param seed     the seed for all randomness in the game
+   * @param input    where turns for the snake really come from
+   * @throws IOException if the replay can't be written
+   * @throws IllegalArgumentException if the given {@code InputSource} is null
+   */
+  public void start(long seed, InputSource input) throws IOException, IllegalArgumentException {
+    if (input == null) {
+      throw new IllegalArgumentException("Invalid input.");
+    }
+    this.input = input;
+    engine.setInput(this);
+    engine.reset(seed);
+    writer.begin(engine, seed);
+  }
+
+  /**
+   * Advances the game by one tick, recording any turn taken and any keyframe due.
+   * Ends the replay once the game is over.
+   *
+   * @throws IOException if the replay can't be written
+   */
+  public void tick() throws IOException {
+    if (engine.isOver()) {
+      return;
+    }
+    writer.keyframeIfDue(engine);
+    int tick = engine.getTicks();
+    turn = null;
+    engine.tick();
+    if (turn != null) {
+      writer.turn(tick, turn);
+    }
+    if (engine.isOver()) {
+      writer.end(engine);
+    }
+  }
+
+  /**
+   * Ends the replay of a game that isn't over yet, as abandoned.
+   *
+   * @throws IOException if the replay can't be written
+   */
+  public void stop() throws IOException {
+    if (!engine.isOver()) {
+      writer.abandon(engine);
+    }
+  }
+
+  @Override
+  public Direction nextTurn(SnakeBody snake, Board board) {
+    turn = input.nextTurn(snake, board);
+    return turn;
+  }
+}
\ No newline at end of file
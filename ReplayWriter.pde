@@ -0,0 +1,315 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes replays of games to a file, one after another, through a buffered channel.
+ * A replay holds the seed and settings of a game, followed by a stream of records:
+ * each turn the snake was given, as a varint of the ticks since the last record and
+ * the direction, and every so often a keyframe holding the whole state of the game.
+ * A footer at the end lists where the keyframes are, so a reader can jump to any tick.
+ *
+ * Layout of a replay, with offsets from its start:
+ *   0  MAGIC, VERSION
+ *   8  length of the replay, filled in when it ends
+ *  16  offset of the footer, filled in when it ends
+ *  20  seed, board size, keyframe interval, then the engine's settings
+ *      records, ending with an END record
+ *      footer: final ticks, final score, keyframe count, then (tick, offset) pairs
+ */
+public class ReplayWriter {
+  public static final int MAGIC = 0x534E4B52;
+  public static final int VERSION = 3;
+  public static final int HEADER_SIZE = 36;
+  public static final int INPUT = 0;
+  public static final int KEYFRAME = 1;
+  public static final int END = 2;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+  private final ByteBuffer patch = ByteBuffer.allocate(12);
+  private ByteBuffer state = ByteBuffer.allocate(1 << 12);
+  private final int keyframeInterval;
+  private long start = -1;
+  private long written;
+  private int lastTick;
+  private int[] keyframes = new int[32];
+  private int keyframeCount;
+
+  /**
+   * Constructs a {@code ReplayWriter}.
+   *
+   * @param file               the file to write to
+   * @param append             true to add replays after any already in the file,
+   *                           cutting off anything after the last finished one,
+   *                           false to start the file over
+   * @param keyframeInterval   the number of ticks between keyframes
+   * @throws IOException if the file can't be opened
+   * @throws IllegalArgumentException if the file is null or the interval is not positive
+   */
+  public ReplayWriter(File file, boolean append, int keyframeInterval)
+      throws IOException, IllegalArgumentException {
+    if (file == null || keyframeInterval <= 0) {
+      throw new IllegalArgumentException("Invalid replay file.");
+    }
+    this.keyframeInterval = keyframeInterval;
+    if (append) {
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.written = finishedLength();
+      channel.truncate(written);
+    } else {
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    channel.position(written);
+  }
+
+  /**
+   * Starts the replay of a game that has just been reset with the given seed.
+   * A replay still open is ended where it got to, with a score of -1.
+   *
+   * @param engine    the game being recorded
+   * @param seed      the seed the game was reset with
+   * @throws IOException if the file can't be written to
+   */
+  public void begin(SnakeEngine engine, long seed) throws IOException {
+    if (start >= 0) {
+      finish(lastTick, -1);
+    }
+    start = written + buffer.position();
+    lastTick = 0;
+    keyframeCount = 0;
+    ensure(HEADER_SIZE + 64);
+    buffer.putInt(MAGIC);
+    buffer.putInt(VERSION);
+    buffer.putLong(0);
+    buffer.putInt(0);
+    buffer.putLong(seed);
+    buffer.putInt(engine.getBoard().getWidth());
+    buffer.putInt(keyframeInterval);
+    engine.writeSettings(buffer);
+  }
+
+  /**
+   * Records the turn the snake was given on the given tick.
+   *
+   * @param tick    the number of ticks played before the turn
+   * @param dir     the direction of the turn
+   * @throws IOException if the file can't be written to
+   * @throws IllegalArgumentException if the direction is null or still
+   */
+  public void turn(int tick, Direction dir) throws IOException, IllegalArgumentException {
+    if (dir == null || dir.equals(Direction.STILL)) {
+      throw new IllegalArgumentException("Invalid turn.");
+    }
+    ensure(10);
+    putVarint(buffer, ((long) (tick - lastTick) << 4) | (dir.ordinal() << 2) | INPUT);
+    lastTick = tick;
+  }
+
+  /**
+   * Records a keyframe if one is due on the game's current tick.
+   *
+   * @param engine    the game being recorded
+   * @throws IOException if the file can't be written to
+   */
+  public void keyframeIfDue(SnakeEngine engine) throws IOException {
+    int tick = engine.getTicks();
+    if (tick > 0 && tick % keyframeInterval == 0) {
+      keyframe(engine);
+    }
+  }
+
+  /**
+   * Records the whole state of the game at its current tick.
+   *
+   * @param engine    the game being recorded
+   * @throws IOException if the file can't be written to
+   */
+  public void keyframe(SnakeEngine engine) throws IOException {
+    int tick = engine.getTicks();
+    if (state.capacity() < engine.stateSize()) {
+      state = ByteBuffer.allocate(Math.max(engine.stateSize(), state.capacity() * 2));
+    }
+    state.clear();
+    engine.writeState(state);
+    state.flip();
+    if (2 * keyframeCount == keyframes.length) {
+      keyframes = Arrays.copyOf(keyframes, keyframes.length * 2);
+    }
+    keyframes[2 * keyframeCount] = tick;
+    keyframes[2 * keyframeCount + 1] = (int) (written + buffer.position() - start);
+    keyframeCount++;
+    ensure(20);
+    putVarint(buffer, ((long) (tick - lastTick) << 4) | KEYFRAME);
+    putVarint(buffer, state.remaining());
+    lastTick = tick;
+    if (state.remaining() > buffer.remaining()) {
+      flush();
+      while (state.hasRemaining()) {
+        written += channel.write(state);
+      }
+    } else {
+      buffer.put(state);
+    }
+  }
+
+  /**
+   * Ends the replay of a game that is over, writing its footer and filling in its
+   * header, and flushes it to the file.
+   *
+   * @param engine    the game being recorded
+   * @throws IOException if the file can't be written to
+   * @throws IllegalStateException if no replay was started
+   */
+  public void end(SnakeEngine engine) throws IOException, IllegalStateException {
+    if (start < 0) {
+      throw new IllegalStateException("No replay started.");
+    }
+    finish(engine.getTicks(), engine.getScore());
+  }
+
+  /**
+   * Ends the replay of a game that is not over, such as one stopped after too many
+   * ticks, so that readers see it with a score of -1.
+   *
+   * @param engine    the game being recorded
+   * @throws IOException if the file can't be written to
+   * @throws IllegalStateException if no replay was started
+   */
+  public void abandon(SnakeEngine engine) throws IOException, IllegalStateException {
+    if (start < 0) {
+      throw new IllegalStateException("No replay started.");
+    }
+    finish(engine.getTicks(), -1);
+  }
+
+  /**
+   * Flushes anything buffered and closes the file. A replay that was not ended is
+   * left with no length, so readers skip it, and it is cut off the next time the
+   * file is opened to append to.
+   *
+   * @throws IOException if the file can't be written to
+   */
+  public void close() throws IOException {
+    flush();
+    channel.close();
+  }
+
+  /**
+   * Helper to the begin(), end() and abandon() functions. Writes the END record and footer,
+   * then fills in the header of the replay.
+   */
+  private void finish(int ticks, int score) throws IOException {
+    ensure(10);
+    putVarint(buffer, ((long) (ticks - lastTick) << 4) | END);
+    lastTick = ticks;
+    int footer = (int) (written + buffer.position() - start);
+    ensure(12);
+    buffer.putInt(ticks);
+    buffer.putInt(score);
+    buffer.putInt(keyframeCount);
+    for (int i = 0; i < 2 * keyframeCount; i++) {
+      ensure(4);
+      buffer.putInt(keyframes[i]);
+    }
+    flush();
+    patch.clear();
+    patch.putLong(written - start);
+    patch.putInt(footer);
+    patch.flip();
+    while (patch.hasRemaining()) {
+      channel.write(patch, start + 8 + patch.position());
+    }
+    start = -1;
+  }
+
+  /**
+   * Helper to the constructor. Returns the end of the last finished replay in the
+   * file, stepping from the header of each one to the next, and searching on for
+   * the next header past any replay that was never ended.
+   */
+  private long finishedLength() throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(16);
+    long size = channel.size();
+    long end = 0;
+    long p = 0;
+    while (size - p >= HEADER_SIZE) {
+      header.clear();
+      read(header, p);
+      long length = header.getLong(8);
+      if (header.getInt(0) == MAGIC && length >= HEADER_SIZE && length <= size - p) {
+        p += length;
+        end = p;
+      } else {
+        p = nextHeader(p + 1, size);
+      }
+    }
+    return end;
+  }
+
+  /**
+   * Helper to the finishedLength() function. Returns the offset of the next replay
+   * header at or after the given offset, or the end of the file if there isn't one.
+   */
+  private long nextHeader(long from, long size) throws IOException {
+    ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+    for (long p = from; size - p >= HEADER_SIZE; p += chunk.limit() - 3) {
+      chunk.clear();
+      chunk.limit((int) Math.min(chunk.capacity(), size - p));
+      read(chunk, p);
+      for (int i = 0; i + 4 <= chunk.limit(); i++) {
+        if (chunk.getInt(i) == MAGIC) {
+          return p + i;
+        }
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Fills the given buffer from the file, starting at the given offset.
+   */
+  private void read(ByteBuffer into, long at) throws IOException {
+    while (into.hasRemaining()) {
+      if (channel.read(into, at + into.position()) < 0) {
+        throw new IOException("Replay file changed while reading.");
+      }
+    }
+  }
+
+  /**
+   * Makes room in the buffer for the given number of bytes, flushing it if needed.
+   */
+  private void ensure(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes everything in the buffer to the file.
+   */
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      written += channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Writes the given value to the buffer as an unsigned varint, seven bits at a
+   * time with the high bit set on every byte but the last.
+   */
+  private void putVarint(ByteBuffer out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.put((byte) value);
+  }
+}
\ No newline at end of file
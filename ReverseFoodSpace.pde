@@ -12,6 +12,11 @@ public final class ReverseFoodSpace extends AFoodSpace {
     super();
   }
   
+  @Override
+  public FoodType getType() {
+    return FoodType.REVERSE;
+  }
+  
   @Override
   public color getColor() {
     return color(#ffff52);
@@ -20,17 +25,17 @@ public final class ReverseFoodSpace extends AFoodSpace {
   /**
    * Reverses the mapped controls, so up is down, left is right, etc.
    *
-   * @param snake       a list of {@code SnakeSpace}s representing a snake
-   * @param foods       a list of {@code FoodSpace}s currently on the map
+   * @param snake       the {@code SnakeBody} of the snake
+   * @param board       the {@code Board} holding the foods currently on the map
    * @param ate         the last type of food the snake has eaten
    * @param hiX         the upper-bound of the x-position
    * @param hiY         the upper-bound of the y-position
-   * @throws IllegalArgumentException if given snake list is null or size 0, or if foods list is null
+   * @throws IllegalArgumentException if given snake is null or size 0, or if board is null
    * @return the FoodType representation of this food
    */
-  public FoodType eatEffect(ArrayList<SnakeSpace> snake, ArrayList<AFoodSpace> foods, FoodType ate,
+  public FoodType eatEffect(SnakeBody snake, Board board, FoodType ate,
                         int hiX, int hiY) throws IllegalArgumentException {
-    if (snake == null || snake.size() == 0 || foods == null) {
+    if (snake == null || snake.size() == 0 || board == null) {
       throw new IllegalArgumentException("Invalid lists passed.");
     }
     return FoodType.REVERSE;
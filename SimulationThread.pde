@@ -0,0 +1,178 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@code SnakeEngine} on its own thread at a fixed timestep, so the speed
+ * of the game depends only on its tick rate and not on how fast frames are drawn.
+ * After every tick the game is copied into one of three snapshots. The drawing
+ * thread always takes the newest finished one, and neither thread ever waits for
+ * the other: the ticking thread fills the spare snapshot while the drawing thread
+ * reads its own, and the two are swapped with a single atomic exchange.
+ */
+public class SimulationThread extends Thread {
+  private static final int FRESH = 4;
+  private static final int MAX_CATCH_UP = 5;
+
+  private final SnakeEngine engine;
+  private final InputQueue input;
+  private ReplayRecorder recorder;
+  private final BoardSnapshot[] snapshots = new BoardSnapshot[3];
+  private final AtomicInteger middle = new AtomicInteger(1);
+  private final ChangeLog changes = new ChangeLog(1 << 14);
+  private int back = 0;
+  private int front = 2;
+  private int publishedSeq;
+  private int drawnSeq;
+  private int game;
+  private volatile int requestedGame;
+  private volatile long requestedSeed;
+  private volatile boolean stopped;
+
+  /**
+   * Constructs a {@code SimulationThread}. The game doesn't tick until it is restarted.
+   *
+   * @param engine    the game to run
+   * @param input     where turns for the snake come from
+   * @throws IllegalArgumentException if the given {@code SnakeEngine} or
+   *                                  {@code InputQueue} is null
+   */
+  public SimulationThread(SnakeEngine engine, InputQueue input) throws IllegalArgumentException {
+    super("simulation");
+    if (engine == null || input == null) {
+      throw new IllegalArgumentException("Invalid engine or input.");
+    }
+    this.engine = engine;
+    this.input = input;
+    engine.setInput(input);
+    Board board = engine.getBoard();
+    for (int i = 0; i < snapshots.length; i++) {
+      snapshots[i] = new BoardSnapshot(board.getWidth(), board.getHeight());
+    }
+    setDaemon(true);
+  }
+
+  /**
+   * Records every game played from now on with the given recorder. Must be set
+   * before the thread is started.
+   *
+   * @param recorder    the recorder for the game, or null to stop recording
+   */
+  public void setRecorder(ReplayRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  /**
+   * Starts a new game with the given seed, dropping any turns still waiting.
+   * Called from the drawing thread.
+   *
+   * @param seed    the seed for all randomness in the game
+   * @return the number of the new game, as found in its snapshots
+   */
+  public int restart(long seed) {
+    requestedSeed = seed;
+    requestedGame = requestedGame + 1;
+    LockSupport.unpark(this);
+    return requestedGame;
+  }
+
+  /**
+   * Stops ticking and ends the thread.
+   */
+  public void shutdown() {
+    stopped = true;
+    LockSupport.unpark(this);
+  }
+
+  /**
+   * Returns the newest finished snapshot of the game. Called from the drawing thread,
+   * and the snapshot returned stays the same until this is called again.
+   *
+   * @return the newest snapshot
+   */
+  public BoardSnapshot latest() {
+    if ((middle.get() & FRESH) != 0) {
+      front = middle.getAndSet(front) & ~FRESH;
+    }
+    return snapshots[front];
+  }
+
+  @Override
+  public void run() {
+    long next = System.nanoTime();
+    while (!stopped) {
+      if (requestedGame != game) {
+        game = requestedGame;
+        input.clear();
+        if (recorder != null) {
+          try {
+            recorder.start(requestedSeed, input);
+          } catch (IOException e) {
+            stopRecording(e);
+            engine.reset(requestedSeed);
+          }
+        } else {
+          engine.reset(requestedSeed);
+        }
+        publish();
+        next = System.nanoTime();
+      }
+      if (game == 0 || engine.isOver()) {
+        LockSupport.park(this);
+        next = System.nanoTime();
+        continue;
+      }
+      long now = System.nanoTime();
+      if (now < next) {
+        LockSupport.parkNanos(this, next - now);
+        continue;
+      }
+      Profiler profiler = engine.getProfiler();
+      profiler.gauge(Profiler.TURNS, input.size());
+      if (recorder != null) {
+        try {
+          recorder.tick();
+        } catch (IOException e) {
+          stopRecording(e);
+        }
+      } else {
+        engine.tick();
+      }
+      long lap = profiler.start();
+      publish();
+      profiler.lap(Profiler.PUBLISH, lap);
+      long period = 1000000000L / engine.getTickRate();
+      next += period;
+      if (now - next > MAX_CATCH_UP * period) {
+        next = now;
+      }
+    }
+  }
+
+  /**
+   * Helper to the run() function. Carries on without recording after the replay
+   * couldn't be written.
+   */
+  private void stopRecording(IOException e) {
+    println("Stopped recording: " + e.getMessage());
+    recorder = null;
+    engine.setInput(input);
+  }
+
+  /**
+   * Helper to the run() function. Records what changed on the board, brings the
+   * spare snapshot up to date with it and swaps it in as the newest one. A snapshot
+   * that comes back without the FRESH bit was swapped out by the drawing thread, so
+   * the one published before it was taken, and the changes listed for the drawing
+   * thread only have to go back to that one.
+   */
+  private void publish() {
+    changes.record(engine.getBoard());
+    snapshots[back].capture(engine, game, changes, drawnSeq);
+    int old = middle.getAndSet(back | FRESH);
+    if ((old & FRESH) == 0) {
+      drawnSeq = publishedSeq;
+    }
+    publishedSeq = snapshots[back].getSeq();
+    back = old & ~FRESH;
+  }
+}
\ No newline at end of file
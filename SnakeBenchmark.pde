@@ -0,0 +1,385 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the hot paths of the game: a full tick, the game over check, moving
+ * the snake, every food effect, and walking the board to draw it. Each benchmark
+ * is run over every combination of snake length, board size and slime count, and
+ * reports the time per operation along with the bytes allocated per operation and
+ * the garbage collections that happened while measuring.
+ */
+public class SnakeBenchmark {
+  private static final int WARMUP_ITERATIONS = 3;
+  private static final int MEASURE_ITERATIONS = 5;
+  private static final long ITERATION_NANOS = 250000000L;
+  private static final int MAX_BATCH = 1000;
+
+  private final int[] lengths = {10, 1000, 100000, 1000000};
+  private final int[] boardSizes = {64, 1024};
+  private final int[] slimeCounts = {0, 4096};
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private long sink;
+
+  /**
+   * Runs every benchmark whose name contains the given filter.
+   *
+   * @param filter    part of a benchmark name, or an empty string to run all of them
+   */
+  public void runAll(String filter) {
+    println(String.format("%-18s %8s %6s %6s %14s %14s %10s %6s",
+        "benchmark", "length", "board", "slime", "ns/op", "ops/s", "B/op", "gc"));
+    for (int size : boardSizes) {
+      for (int slime : slimeCounts) {
+        for (int length : lengths) {
+          Fixture fixture = new Fixture(length, size, slime);
+          if (!fixture.fits()) {
+            continue;
+          }
+          ArrayList<Workload> workloads = new ArrayList<Workload>();
+          workloads.add(new TickWorkload(fixture));
+          workloads.add(new GameOverWorkload(fixture));
+          workloads.add(new MoveWorkload(fixture));
+          workloads.add(new RenderPrepWorkload(fixture));
+          for (FoodType t : FoodType.values()) {
+            workloads.add(new EatWorkload(fixture, t));
+          }
+          for (Workload w : workloads) {
+            if (w.name().contains(filter)) {
+              fixture.build();
+              report(w.name(), fixture, measure(w));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Warms up and then measures the given workload.
+   *
+   * @return the time per operation, bytes per operation and collections, in that order
+   */
+  private double[] measure(Workload w) {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      iteration(w);
+    }
+    long nanos = 0;
+    long ops = 0;
+    long bytes = 0;
+    long gcs = collections();
+    for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+      long[] it = iteration(w);
+      nanos += it[0];
+      ops += it[1];
+      bytes += it[2];
+    }
+    return new double[] {(double) nanos / ops, (double) bytes / ops, collections() - gcs};
+  }
+
+  /**
+   * Runs batches of the given workload until enough time has been measured.
+   * Only the batches themselves are timed, not the preparation before them.
+   *
+   * @return the nanoseconds, operations and bytes allocated, in that order
+   */
+  private long[] iteration(Workload w) {
+    long tid = Thread.currentThread().getId();
+    long nanos = 0;
+    long ops = 0;
+    long bytes = 0;
+    while (nanos < ITERATION_NANOS) {
+      w.prepare();
+      int batch = w.batch();
+      long startBytes = threads.getThreadAllocatedBytes(tid);
+      long start = System.nanoTime();
+      sink += w.run(batch);
+      nanos += System.nanoTime() - start;
+      bytes += threads.getThreadAllocatedBytes(tid) - startBytes;
+      ops += batch;
+    }
+    return new long[] {nanos, ops, bytes};
+  }
+
+  /**
+   * Returns the total number of garbage collections so far.
+   */
+  private long collections() {
+    long count = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, gc.getCollectionCount());
+    }
+    return count;
+  }
+
+  private void report(String name, Fixture f, double[] result) {
+    println(String.format("%-18s %8d %6d %6d %14.1f %14.0f %10.1f %6.0f",
+        name, f.length, f.size, f.slime, result[0], 1e9 / result[0], result[1], result[2]));
+  }
+
+  /**
+   * Represents something to measure, run in batches with untimed preparation between them.
+   */
+  private abstract class Workload {
+    protected final Fixture fixture;
+
+    Workload(Fixture fixture) {
+      this.fixture = fixture;
+    }
+
+    abstract String name();
+
+    /**
+     * Gets the fixture ready for the next batch. Not timed.
+     */
+    void prepare() {
+      if (fixture.engine.isOver()) {
+        fixture.build();
+      }
+    }
+
+    /**
+     * Returns how many operations to run in the next batch.
+     */
+    int batch() {
+      return MAX_BATCH;
+    }
+
+    /**
+     * Runs the given number of operations, returning a value that depends on them.
+     */
+    abstract long run(int ops);
+  }
+
+  private class TickWorkload extends Workload {
+    TickWorkload(Fixture fixture) {
+      super(fixture);
+    }
+
+    String name() {
+      return "tick";
+    }
+
+    long run(int ops) {
+      for (int i = 0; i < ops; i++) {
+        fixture.engine.tick();
+      }
+      return fixture.engine.getTicks();
+    }
+  }
+
+  private class GameOverWorkload extends Workload {
+    GameOverWorkload(Fixture fixture) {
+      super(fixture);
+    }
+
+    String name() {
+      return "isGameOver";
+    }
+
+    long run(int ops) {
+      long over = 0;
+      for (int i = 0; i < ops; i++) {
+        if (fixture.engine.isGameOver()) {
+          over++;
+        }
+      }
+      return over;
+    }
+  }
+
+  private class MoveWorkload extends Workload {
+    MoveWorkload(Fixture fixture) {
+      super(fixture);
+    }
+
+    String name() {
+      return "move";
+    }
+
+    long run(int ops) {
+      SnakeBody snake = fixture.engine.getSnake();
+      for (int i = 0; i < ops; i++) {
+        snake.turn(fixture.cycleDirection(snake.headX(), snake.headY()));
+        snake.move(FoodType.DEFAULT, fixture.size - 1, fixture.size - 1);
+      }
+      return snake.headX();
+    }
+  }
+
+  private class RenderPrepWorkload extends Workload {
+    RenderPrepWorkload(Fixture fixture) {
+      super(fixture);
+    }
+
+    String name() {
+      return "renderPrep";
+    }
+
+    int batch() {
+      return max(1, MAX_BATCH * 100 / fixture.length);
+    }
+
+    long run(int ops) {
+      SnakeBody snake = fixture.engine.getSnake();
+      Board board = fixture.engine.getBoard();
+      long sum = 0;
+      for (int n = 0; n < ops; n++) {
+        for (int i = 0; i < board.foodCount(); i++) {
+          sum += board.getFood(i).x;
+        }
+        for (int i = 0; i < board.slimeCount(); i++) {
+          sum += board.slimeX(i) + board.slimeY(i);
+        }
+        for (int i = 0; i < snake.size(); i++) {
+          sum += snake.getX(i) + snake.getY(i);
+        }
+      }
+      return sum;
+    }
+  }
+
+  /**
+   * Measures the effect of eating one type of food. Effects change the snake and
+   * board, so the fixture is restored before every batch and batches are kept
+   * small enough that the snake never shrinks away or fills the board.
+   */
+  private class EatWorkload extends Workload {
+    private final FoodType type;
+    private final AFoodSpace food;
+
+    EatWorkload(Fixture fixture, FoodType type) {
+      super(fixture);
+      this.type = type;
+      this.food = fixture.engine.getBoard().newFood(type);
+    }
+
+    String name() {
+      return "eat" + type.name().charAt(0) + type.name().substring(1).toLowerCase();
+    }
+
+    void prepare() {
+      fixture.restore();
+    }
+
+    int batch() {
+      return max(1, min(MAX_BATCH, min(fixture.length / 2, fixture.spare() / 16)));
+    }
+
+    long run(int ops) {
+      SnakeBody snake = fixture.engine.getSnake();
+      Board board = fixture.engine.getBoard();
+      long changes = 0;
+      for (int i = 0; i < ops; i++) {
+        snake.turn(fixture.cycleDirection(snake.headX(), snake.headY()));
+        changes += food.eatEffect(snake, board, FoodType.DEFAULT, fixture.size - 1, fixture.size - 1).ordinal();
+      }
+      return changes + snake.size();
+    }
+  }
+
+  /**
+   * Represents a game set up for benchmarking. The snake follows a cycle that
+   * visits every space in the top rows of the board, so it never runs into
+   * itself, and the slime fills the rows below the cycle where the snake never
+   * goes. Special foods never spawn, so the snake stays the same length.
+   */
+  private class Fixture {
+    final int length;
+    final int size;
+    final int slime;
+    final int rows;
+    final SnakeEngine engine;
+
+    Fixture(int length, int size, int slime) {
+      this.length = length;
+      this.size = size;
+      this.slime = slime;
+      int slimeRows = (slime + size - 1) / size;
+      this.rows = (size - slimeRows) & ~1;
+      this.engine = new SnakeEngine(size, 0, new CycleInput());
+      for (FoodType t : FoodType.values()) {
+        engine.setSpawnRate(t, Integer.MAX_VALUE);
+      }
+    }
+
+    /**
+     * Checks whether a snake of this length fits on the cycle, with room to spare.
+     */
+    boolean fits() {
+      return rows >= 4 && spare() >= 16;
+    }
+
+    /**
+     * Returns the number of spaces on the cycle not taken up by the snake.
+     */
+    int spare() {
+      return size * rows - length - 1;
+    }
+
+    /**
+     * Resets the game and lays the snake out along the cycle. Takes time
+     * proportional to the board size and snake length.
+     */
+    void build() {
+      engine.reset(0);
+      Board board = engine.getBoard();
+      board.removeFood(0);
+      for (int i = 0; i < slime; i++) {
+        board.addSlime(i % size, rows + i / size);
+      }
+      SnakeBody snake = engine.getSnake();
+      for (int i = 1; i < length; i++) {
+        snake.turn(cycleDirection(snake.headX(), snake.headY()));
+        snake.grow(FoodType.DEFAULT, size - 1, size - 1);
+      }
+    }
+
+    /**
+     * Undoes any food effects since the last build, by growing or cutting the snake
+     * back to its length along the cycle and removing all food. Takes time
+     * proportional to how much changed.
+     */
+    void restore() {
+      SnakeBody snake = engine.getSnake();
+      Board board = engine.getBoard();
+      while (snake.size() < length) {
+        snake.turn(cycleDirection(snake.headX(), snake.headY()));
+        snake.grow(FoodType.DEFAULT, size - 1, size - 1);
+      }
+      while (snake.size() > length) {
+        snake.removeHead();
+      }
+      while (board.foodCount() > 0) {
+        board.removeFood(board.foodCount() - 1);
+      }
+    }
+
+    /**
+     * Returns the direction to move in from the given space to stay on the cycle.
+     * Even rows run right and odd rows run left, from column 1 to the last column,
+     * and column 0 carries the snake from the bottom row back up to the top.
+     */
+    Direction cycleDirection(int x, int y) {
+      if (x == 0) {
+        return (y == 0) ? Direction.DIR_RIGHT : Direction.DIR_UP;
+      } else if (y % 2 == 0) {
+        return (x < size - 1) ? Direction.DIR_RIGHT : Direction.DIR_DOWN;
+      } else if (y == rows - 1 || x > 1) {
+        return Direction.DIR_LEFT;
+      }
+      return Direction.DIR_DOWN;
+    }
+
+    /**
+     * Steers the snake along the cycle.
+     */
+    private class CycleInput implements InputSource {
+      @Override
+      public Direction nextTurn(SnakeBody snake, Board board) {
+        Direction next = cycleDirection(snake.headX(), snake.headY());
+        return next.equals(snake.getDirection()) ? null : next;
+      }
+    }
+  }
+}
\ No newline at end of file
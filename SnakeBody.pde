@@ -0,0 +1,397 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the body of a snake as a ring buffer of packed grid positions,
+ * ordered from head to tail. Moving pushes a new head and pops the tail, so
+ * the cost of a move does not depend on the length of the snake. Every space
+ * taken up is marked on a {@code Board}, which is how the snake running into
+ * itself is detected.
+ */
+public final class SnakeBody {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final Board board;
+  private int[] cells;
+  private int head;
+  private int size;
+  private Direction direction;
+  private boolean collided;
+
+  /**
+   * Constructs a {@code SnakeBody} with a single space.
+   *
+   * @param board   the board to mark the snake's spaces on
+   * @param x       the x-position of the head
+   * @param y       the y-position of the head
+   * @throws IllegalArgumentException if the given {@code Board} is null
+   */
+  public SnakeBody(Board board, int x, int y) throws IllegalArgumentException {
+    if (board == null) {
+      throw new IllegalArgumentException("Invalid board.");
+    }
+    this.board = board;
+    this.cells = new int[INITIAL_CAPACITY];
+    reset(x, y);
+  }
+
+  /**
+   * Resets this {@code SnakeBody} to a single, still space at the given position.
+   * The board should already be cleared of the old snake.
+   *
+   * @param x     the x-position of the head
+   * @param y     the y-position of the head
+   */
+  public void reset(int x, int y) {
+    this.head = 0;
+    this.size = 0;
+    this.direction = Direction.STILL;
+    this.collided = false;
+    pushHead(pack(x, y));
+  }
+
+  /**
+   * Returns the number of spaces in this snake.
+   *
+   * @return the length of the snake
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the direction the head of this snake is moving in.
+   *
+   * @return the direction of the snake
+   */
+  public Direction getDirection() {
+    return this.direction;
+  }
+
+  /**
+   * Returns the x-position of the space at the given index, where 0 is the head.
+   *
+   * @param i      the index of the space
+   * @return the x-position of the space
+   * @throws IllegalArgumentException if the index is out of range
+   */
+  public int getX(int i) throws IllegalArgumentException {
+    return unpackX(cellAt(i));
+  }
+
+  /**
+   * Returns the y-position of the space at the given index, where 0 is the head.
+   *
+   * @param i      the index of the space
+   * @return the y-position of the space
+   * @throws IllegalArgumentException if the index is out of range
+   */
+  public int getY(int i) throws IllegalArgumentException {
+    return unpackY(cellAt(i));
+  }
+
+  public int headX() {
+    return getX(0);
+  }
+
+  public int headY() {
+    return getY(0);
+  }
+
+  public int tailX() {
+    return getX(size - 1);
+  }
+
+  public int tailY() {
+    return getY(size - 1);
+  }
+
+  /**
+   * Turns the head of this snake in the given direction, if a valid turn.
+   *
+   * @param dir    the direction to turn
+   * @return true if the snake turned, false otherwise
+   * @throws IllegalArgumentException if the given {@code Direction} is null
+   */
+  public boolean turn(Direction dir) throws IllegalArgumentException {
+    if (dir == null) {
+      throw new IllegalArgumentException("Cannot turn that way.");
+    }
+    if (this.direction.validTurn(dir)) {
+      this.direction = dir;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Moves the snake one space in its direction, by adding a new head and
+   * removing the tail. If the snake has eaten a star or reverse food, it
+   * wraps around the given boundaries.
+   *
+   * @param ate    the last type of food the snake has eaten
+   * @param hiX    the high boundary for x
+   * @param hiY    the high boundary for y
+   * @throws IllegalStateException if direction is not up, down, left, or right
+   */
+  public void move(FoodType ate, int hiX, int hiY) throws IllegalStateException {
+    if (this.direction.equals(Direction.STILL)) {
+      return;
+    }
+    int next = step(ate, hiX, hiY);
+    popTail();
+    pushHead(next);
+  }
+
+  /**
+   * Grows the snake by adding a new head one space ahead of the current one,
+   * keeping the tail in place.
+   *
+   * @param ate    the last type of food the snake has eaten
+   * @param hiX    the high boundary for x
+   * @param hiY    the high boundary for y
+   * @throws IllegalStateException if direction is not up, down, left, or right
+   */
+  public void grow(FoodType ate, int hiX, int hiY) throws IllegalStateException {
+    pushHead(step(ate, hiX, hiY));
+  }
+
+  /**
+   * Adds a new head at the given position, keeping the tail in place. Used when
+   * the caller has already worked out where the snake moves to.
+   *
+   * @param x      the x-position of the new head
+   * @param y      the y-position of the new head
+   */
+  public void addHead(int x, int y) {
+    pushHead(pack(x, y));
+  }
+
+  /**
+   * Removes the tail of the snake, freeing its space on the board.
+   *
+   * @throws IllegalStateException if the snake has no spaces
+   */
+  public void removeTail() throws IllegalStateException {
+    if (this.size == 0) {
+      throw new IllegalStateException("Snake has no tail.");
+    }
+    popTail();
+  }
+
+  /**
+   * Returns the x-position of the space one ahead of the head in the current
+   * direction, wrapping around the given boundaries as move() would.
+   *
+   * @param ate    the last type of food the snake has eaten
+   * @param hiX    the high boundary for x
+   * @param hiY    the high boundary for y
+   * @return the x-position ahead of the head
+   * @throws IllegalStateException if direction is not up, down, left, or right
+   */
+  public int aheadX(FoodType ate, int hiX, int hiY) throws IllegalStateException {
+    return unpackX(step(ate, hiX, hiY));
+  }
+
+  /**
+   * Returns the y-position of the space one ahead of the head in the current
+   * direction, wrapping around the given boundaries as move() would.
+   *
+   * @param ate    the last type of food the snake has eaten
+   * @param hiX    the high boundary for x
+   * @param hiY    the high boundary for y
+   * @return the y-position ahead of the head
+   * @throws IllegalStateException if direction is not up, down, left, or right
+   */
+  public int aheadY(FoodType ate, int hiX, int hiY) throws IllegalStateException {
+    return unpackY(step(ate, hiX, hiY));
+  }
+
+  /**
+   * Removes the head of the snake, making the next space the new head.
+   *
+   * @throws IllegalStateException if the snake has no spaces
+   */
+  public void removeHead() throws IllegalStateException {
+    if (this.size == 0) {
+      throw new IllegalStateException("Snake has no head.");
+    }
+    int old = cellAt(0);
+    board.unmark(unpackX(old), unpackY(old), Board.SNAKE | Board.HEAD);
+    this.head = (this.head + 1) & (cells.length - 1);
+    this.size--;
+    if (this.size > 0) {
+      board.mark(headX(), headY(), Board.HEAD);
+    }
+  }
+
+  /**
+   * Checks whether the head of this snake has moved onto any other space of the snake.
+   *
+   * @return true if the snake ran into itself, false otherwise
+   */
+  public boolean hasCollided() {
+    return this.collided;
+  }
+
+  /**
+   * Checks whether the head of this snake is out of the given boundaries
+   *
+   * @param hiX    the high boundary for x
+   * @param hiY    the high boundary for y
+   * @return true if the snake is out of bounds, false otherwise
+   */
+  public boolean outOfBounds(int hiX, int hiY) {
+    int x = headX();
+    int y = headY();
+    return x < 0 || x > hiX || y < 0 || y > hiY;
+  }
+
+  /**
+   * Returns the most bytes writeState() would currently write.
+   *
+   * @return the size of the state in bytes
+   */
+  public int stateSize() {
+    return 6 + 4 * size;
+  }
+
+  /**
+   * Writes the direction, spaces and collision of this snake to the given buffer.
+   *
+   * @param out    the buffer to write to
+   */
+  public void writeState(ByteBuffer out) {
+    out.put((byte) direction.ordinal());
+    out.put((byte) (collided ? 1 : 0));
+    out.putInt(size);
+    for (int i = 0; i < size; i++) {
+      out.putInt(cellAt(i));
+    }
+  }
+
+  /**
+   * Reads a snake written by writeState() from the given buffer, replacing this
+   * one. The board should already be cleared of the old snake.
+   *
+   * @param in     the buffer to read from
+   */
+  public void readState(ByteBuffer in) {
+    Direction dir = Direction.values()[in.get()];
+    boolean hit = in.get() != 0;
+    int count = in.getInt();
+    int start = in.position();
+    this.head = 0;
+    this.size = 0;
+    for (int i = count - 1; i >= 0; i--) {
+      pushHead(in.getInt(start + 4 * i));
+    }
+    in.position(start + 4 * count);
+    this.direction = dir;
+    this.collided = hit;
+  }
+
+  /**
+   * Helper to the move(), grow() and ahead functions. Returns the packed position one
+   * space ahead of the head in the current direction.
+   *
+   * @throws IllegalStateException if direction is not up, down, left, or right
+   */
+  private int step(FoodType ate, int hiX, int hiY) throws IllegalStateException {
+    int x = headX();
+    int y = headY();
+    switch (direction) {
+      case DIR_UP:
+        y -= 1;
+        break;
+      case DIR_DOWN:
+        y += 1;
+        break;
+      case DIR_LEFT:
+        x -= 1;
+        break;
+      case DIR_RIGHT:
+        x += 1;
+        break;
+      case STILL:
+        break;
+      default:
+        throw new IllegalStateException("Cannot move that way.");
+    }
+    if (ate.equals(FoodType.STAR) || ate.equals(FoodType.REVERSE)) {
+      if (x < 0) {
+        x = hiX;
+      } else if (x > hiX) {
+        x = 0;
+      }
+      if (y < 0) {
+        y = hiY;
+      } else if (y > hiY) {
+        y = 0;
+      }
+    }
+    return pack(x, y);
+  }
+
+  /**
+   * Adds the given packed position as the new head, growing the buffer if full.
+   */
+  private void pushHead(int cell) {
+    int x = unpackX(cell);
+    int y = unpackY(cell);
+    if (board.has(x, y, Board.SNAKE)) {
+      this.collided = true;
+    }
+    if (this.size > 0) {
+      board.unmark(headX(), headY(), Board.HEAD);
+    }
+    board.mark(x, y, Board.SNAKE | Board.HEAD);
+    if (this.size == cells.length) {
+      int[] grown = new int[cells.length * 2];
+      for (int i = 0; i < size; i++) {
+        grown[i] = cellAt(i);
+      }
+      this.cells = grown;
+      this.head = 0;
+    }
+    this.head = (this.head - 1) & (cells.length - 1);
+    this.cells[head] = cell;
+    this.size++;
+  }
+
+  /**
+   * Removes the tail, freeing its space on the board.
+   */
+  private void popTail() {
+    int tail = cellAt(size - 1);
+    board.unmark(unpackX(tail), unpackY(tail), (size == 1) ? Board.SNAKE | Board.HEAD : Board.SNAKE);
+    this.size--;
+  }
+
+  /**
+   * Returns the packed position at the given index, where 0 is the head.
+   *
+   * @throws IllegalArgumentException if the index is out of range
+   */
+  private int cellAt(int i) throws IllegalArgumentException {
+    if (i < 0 || i >= size) {
+      throw new IllegalArgumentException("Invalid index.");
+    }
+    return cells[(head + i) & (cells.length - 1)];
+  }
+
+  /**
+   * Packs the given position into a single int, keeping 16 signed bits per axis
+   * so positions just outside the board can still be represented.
+   */
+  private int pack(int x, int y) {
+    return (x << 16) | (y & 0xFFFF);
+  }
+
+  private int unpackX(int cell) {
+    return cell >> 16;
+  }
+
+  private int unpackY(int cell) {
+    return (cell << 16) >> 16;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,438 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the rules of a single game of snake, without any drawing or input
+ * handling. Time is kept on a tick clock instead of the wall clock, and all
+ * randomness comes from one seeded generator, so a game played with the same
+ * seed and the same turns always ends the same way.
+ */
+public class SnakeEngine {
+  public static final int DEFAULT_TICK_RATE = 15;
+  public static final int DEFAULT_SPAWN_WAIT = 750;
+  public static final int DEFAULT_DESPAWN_WAIT = 7000;
+  public static final int DEFAULT_EFFECT_WAIT = 6000;
+
+  private final FoodType[] types = FoodType.values();
+  private final int[] spawnRates = new int[types.length];
+  private int foodSpawnWait = DEFAULT_SPAWN_WAIT;
+  private int foodDespawnWait = DEFAULT_DESPAWN_WAIT;
+  private int foodEffectWait = DEFAULT_EFFECT_WAIT;
+  private int baseTickRate = DEFAULT_TICK_RATE;
+
+  private final int boardSize;
+  private final ReplayRandom rng;
+  private final Board board;
+  private final SnakeBody snake;
+  private InputSource input;
+  private Profiler profiler = new Profiler();
+
+  private long elapsed;
+  private int ticks;
+  private boolean over;
+  private boolean reverseMapping;
+  private int effectTimer;
+  private int spawnTimer;
+  private int despawnTimer;
+  private FoodType ate = FoodType.DEFAULT;
+
+  /**
+   * Constructs a {@code SnakeEngine} and starts a new game.
+   *
+   * @param boardSize   the number of spaces across and down the board
+   * @param seed        the seed for all randomness in the game
+   * @param input       where turns for the snake come from
+   * @throws IllegalArgumentException if the given {@code InputSource} is null
+   */
+  public SnakeEngine(int boardSize, long seed, InputSource input) throws IllegalArgumentException {
+    if (input == null) {
+      throw new IllegalArgumentException("Invalid input.");
+    }
+    this.boardSize = boardSize;
+    this.input = input;
+    this.rng = new ReplayRandom(seed);
+    this.board = new Board(boardSize, boardSize, rng);
+    this.snake = new SnakeBody(board, 1, 1);
+    for (FoodType t : types) {
+      spawnRates[t.ordinal()] = t.getSpawnRate();
+    }
+    reset(seed);
+  }
+
+  /**
+   * Resets the game back to its original state, using the given seed.
+   *
+   * @param seed        the seed for all randomness in the game
+   */
+  public void reset(long seed) {
+    rng.setSeed(seed);
+    elapsed = 0;
+    ticks = 0;
+    over = false;
+    reverseMapping = false;
+    spawnTimer = 0;
+    despawnTimer = 0;
+    effectTimer = 0;
+    ate = FoodType.DEFAULT;
+    board.reset();
+    snake.reset(1, 1);
+    board.addFood(board.newFood(FoodType.DEFAULT));
+  }
+
+  /**
+   * Sets how long the timers in the game wait, in milliseconds of game time.
+   *
+   * @param spawnWait     how long between attempts to spawn a special food
+   * @param despawnWait   how long special foods stay on the board
+   * @param effectWait    how long the effect of a special food lasts
+   * @throws IllegalArgumentException if any of the waits are negative
+   */
+  public void setTimings(int spawnWait, int despawnWait, int effectWait) throws IllegalArgumentException {
+    if (spawnWait < 0 || despawnWait < 0 || effectWait < 0) {
+      throw new IllegalArgumentException("Invalid timings.");
+    }
+    this.foodSpawnWait = spawnWait;
+    this.foodDespawnWait = despawnWait;
+    this.foodEffectWait = effectWait;
+  }
+
+  /**
+   * Sets the rate at which the given type of food spawns, as a one in spawnRate chance.
+   *
+   * @param type        the type of food
+   * @param spawnRate   the new spawn rate
+   * @throws IllegalArgumentException if the type is null or the rate is not positive
+   */
+  public void setSpawnRate(FoodType type, int spawnRate) throws IllegalArgumentException {
+    if (type == null || spawnRate <= 0) {
+      throw new IllegalArgumentException("Invalid spawn rate.");
+    }
+    spawnRates[type.ordinal()] = spawnRate;
+  }
+
+  /**
+   * Sets how many times a second the game ticks when no fast or slow food is in effect.
+   *
+   * @param tickRate    the number of ticks per second
+   * @throws IllegalArgumentException if the rate is not positive
+   */
+  public void setTickRate(int tickRate) throws IllegalArgumentException {
+    if (tickRate <= 0) {
+      throw new IllegalArgumentException("Invalid tick rate.");
+    }
+    this.baseTickRate = tickRate;
+  }
+
+  /**
+   * Sets where turns for the snake come from.
+   *
+   * @param input       the new source of turns
+   * @throws IllegalArgumentException if the given {@code InputSource} is null
+   */
+  public void setInput(InputSource input) throws IllegalArgumentException {
+    if (input == null) {
+      throw new IllegalArgumentException("Invalid input.");
+    }
+    this.input = input;
+  }
+
+  /**
+   * Sets the profiler the phases of each tick are timed with. Each engine starts
+   * with its own disabled one.
+   *
+   * @param profiler    the profiler to record into
+   * @throws IllegalArgumentException if the given {@code Profiler} is null
+   */
+  public void setProfiler(Profiler profiler) throws IllegalArgumentException {
+    if (profiler == null) {
+      throw new IllegalArgumentException("Invalid profiler.");
+    }
+    this.profiler = profiler;
+  }
+
+  public Profiler getProfiler() {
+    return this.profiler;
+  }
+
+  /**
+   * Writes the timings, spawn rates and tick rate of this game to the given buffer.
+   *
+   * @param out    the buffer to write to
+   */
+  public void writeSettings(ByteBuffer out) {
+    out.putInt(baseTickRate);
+    out.putInt(foodSpawnWait);
+    out.putInt(foodDespawnWait);
+    out.putInt(foodEffectWait);
+    out.putInt(spawnRates.length);
+    for (int i = 0; i < spawnRates.length; i++) {
+      out.putInt(spawnRates[i]);
+    }
+  }
+
+  /**
+   * Reads settings written by writeSettings() from the given buffer, and uses them for this game.
+   *
+   * @param in     the buffer to read from
+   * @throws IllegalArgumentException if the settings are not valid for this game
+   */
+  public void readSettings(ByteBuffer in) throws IllegalArgumentException {
+    setTickRate(in.getInt());
+    setTimings(in.getInt(), in.getInt(), in.getInt());
+    if (in.getInt() != spawnRates.length) {
+      throw new IllegalArgumentException("Invalid settings.");
+    }
+    for (FoodType t : types) {
+      setSpawnRate(t, in.getInt());
+    }
+  }
+
+  /**
+   * Returns the most bytes writeState() would currently write.
+   *
+   * @return the size of the state in bytes
+   */
+  public int stateSize() {
+    return 48 + snake.stateSize() + board.stateSize();
+  }
+
+  /**
+   * Writes everything needed to carry on this game from the current tick to the
+   * given buffer: the clock and timers, the random number generator, the snake
+   * and the board.
+   *
+   * @param out    the buffer to write to
+   */
+  public void writeState(ByteBuffer out) {
+    out.putLong(elapsed);
+    out.putInt(ticks);
+    out.put((byte) (over ? 1 : 0));
+    out.put((byte) (reverseMapping ? 1 : 0));
+    out.putInt(effectTimer);
+    out.putInt(spawnTimer);
+    out.putInt(despawnTimer);
+    out.put((byte) ate.ordinal());
+    out.putLong(rng.getState());
+    snake.writeState(out);
+    board.writeState(out);
+  }
+
+  /**
+   * Reads state written by writeState() from the given buffer, and carries on
+   * this game from there. The game's settings are kept.
+   *
+   * @param in     the buffer to read from
+   */
+  public void readState(ByteBuffer in) {
+    elapsed = in.getLong();
+    ticks = in.getInt();
+    over = in.get() != 0;
+    reverseMapping = in.get() != 0;
+    effectTimer = in.getInt();
+    spawnTimer = in.getInt();
+    despawnTimer = in.getInt();
+    ate = types[in.get()];
+    rng.setState(in.getLong());
+    board.reset();
+    snake.readState(in);
+    board.readState(in);
+  }
+
+  public SnakeBody getSnake() {
+    return this.snake;
+  }
+
+  public Board getBoard() {
+    return this.board;
+  }
+
+  public FoodType getAte() {
+    return this.ate;
+  }
+
+  public int getScore() {
+    return snake.size();
+  }
+
+  public int getTicks() {
+    return this.ticks;
+  }
+
+  public boolean isOver() {
+    return this.over;
+  }
+
+  public boolean isReverseMapping() {
+    return this.reverseMapping;
+  }
+
+  /**
+   * Returns how many times a second the game should tick, which depends on
+   * whether the snake has eaten a fast or slow food.
+   *
+   * @return the number of ticks per second
+   */
+  public int getTickRate() {
+    if (ate.equals(FoodType.FAST)) {
+      return baseTickRate * 3;
+    } else if (ate.equals(FoodType.SLOW)) {
+      return Math.max(1, baseTickRate / 3);
+    }
+    return baseTickRate;
+  }
+
+  /**
+   * Advances the game by one tick, unless it is over. Each phase of the tick is
+   * timed with the profiler, and the gauges are updated after it, if enabled.
+   */
+  public void tick() {
+    if (over) {
+      return;
+    }
+    long start = profiler.start();
+    boolean gameOver = isGameOver();
+    long lap = profiler.lap(Profiler.COLLISION, start);
+    if (gameOver) {
+      over = true;
+      return;
+    }
+    updatePlaying(lap);
+    elapsed += 1000000L / getTickRate();
+    ticks++;
+    if (start != 0) {
+      profiler.gauge(Profiler.LENGTH, snake.size());
+      profiler.gauge(Profiler.FOOD, board.foodCount());
+      profiler.gauge(Profiler.SLIME, board.slimeCount());
+      profiler.lap(Profiler.TICK, start);
+    }
+  }
+
+  /**
+   * Returns the game time, in milliseconds since the game started.
+   */
+  private int millis() {
+    return (int) (elapsed / 1000);
+  }
+
+  /**
+   * Helper to the tick() function. Moves the snake and handles the food it eats.
+   *
+   * @param lap    the time to start timing the first phase from, or 0 if not timed
+   */
+  private void updatePlaying(long lap) {
+    updateTimer();
+    lap = profiler.lap(Profiler.TIMER, lap);
+    AFoodSpace eaten = board.foodAt(snake.headX(), snake.headY());
+    if (ate.equals(FoodType.SLIMER) && !snake.getDirection().equals(Direction.STILL)) {
+      board.addSlime(snake.tailX(), snake.tailY());
+    }
+    Direction turn = input.nextTurn(snake, board);
+    if (turn != null) {
+      snake.turn(turn);
+    }
+    lap = profiler.lap(Profiler.TURN, lap);
+    snake.move(ate, boardSize - 1, boardSize - 1);
+    lap = profiler.lap(Profiler.MOVE, lap);
+    eatFood(eaten, lap);
+  }
+
+  /**
+   * Helper to the updatePlaying() function.
+   * Checks if the spawn timer is finished, and if so, spawns a new food on the board.
+   * Checks if the despawn timer is finished, and if so, despawns all special foods from the board.
+   * Checks if the effect timer is finished, and if so, removes the special effect from the snake and game.
+   * If not for any of the above, it starts the timer at the appropriate time.
+   */
+  private void updateTimer() {
+    if (snake.size() >= 5) {
+      if (spawnTimer == 0) {
+        spawnTimer = millis();
+      } else if (millis() - spawnTimer >= foodSpawnWait) {
+        spawnTimer = 0;
+        if (randomFood() && board.foodCount() == 2) {
+          despawnTimer = millis();
+        }
+      }
+    }
+    if (millis() - despawnTimer >= foodDespawnWait) {
+      despawnFood();
+      if (ate.equals(FoodType.EXPLODER)) {
+        ate = FoodType.DEFAULT;
+      }
+      despawnTimer = 0;
+    }
+    if (!ate.equals(FoodType.DEFAULT) && millis() - effectTimer >= foodEffectWait) {
+      ate = FoodType.DEFAULT;
+      effectTimer = 0;
+      reverseMapping = false;
+      board.clearSlime();
+    }
+  }
+
+  /**
+   * Helper to the updateTimer() function. Removes every food but one default food,
+   * which is the special foods along with any extra foods from an exploder.
+   * Goes from the end, since removing a food moves the last one into its place.
+   */
+  private void despawnFood() {
+    boolean kept = false;
+    for (int i = board.foodCount() - 1; i >= 0; i--) {
+      if (!kept && board.getFood(i).getType().equals(FoodType.DEFAULT)) {
+        kept = true;
+      } else {
+        board.removeFood(i);
+      }
+    }
+  }
+
+  /**
+   * Helper to the updateTimer() function. Randomly spawns a random type of food on the map.
+   *
+   * @return true if a food is spawned, false otherwise
+   */
+  private boolean randomFood() {
+    FoodType which = types[rng.nextInt(types.length)];
+    if (rng.nextInt(spawnRates[which.ordinal()]) < 1) {
+      if (!which.equals(FoodType.DEFAULT)) {
+        board.addFood(board.newFood(which));
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Helper to the updatePlaying() function.
+   * Handles eaten food effects and starts the effect timer.
+   * Restarts the despawn timer if over.
+   * Removes the eaten food from the board.
+   * Times eating by the type of food eaten.
+   */
+  private void eatFood(AFoodSpace eaten, long lap) {
+    if (eaten != null) {
+      FoodType type = eaten.getType();
+      FoodType change = eaten.eatEffect(snake, board, ate, boardSize, boardSize);
+      if (!change.equals(FoodType.DEFAULT)) {
+        ate = change;
+        effectTimer = millis();
+        if (ate.equals(FoodType.REVERSE)) {
+          reverseMapping = true;
+        } else if (ate.equals(FoodType.EXPLODER)) {
+          despawnTimer = millis();
+        }
+      }
+      board.removeFood(eaten);
+      profiler.lapEat(type, lap);
+    }
+  }
+
+  /**
+   * Decides whether the game is over or not, based on where the snake is now.
+   *
+   * @return true if the game is over, false otherwise
+   */
+  public boolean isGameOver() {
+    return snake.size() == 0 || snake.hasCollided()
+        || board.has(snake.headX(), snake.headY(), Board.SLIME)
+        || snake.outOfBounds(boardSize - 1, boardSize - 1);
+  }
+}
\ No newline at end of file
@@ -1,26 +1,23 @@
 /**
- * Represents the model, or logic, of the game.
+ * Represents the model of the program. Runs the game rules in a {@code SnakeEngine}
+ * on a {@code SimulationThread}, and handles the screens and input around it.
  */
 public class SnakeModel {
+  private static final int DISPLAY_RATE = 60;
+  private static final int SESSION_REPLAYS = 10;
+  
   private final int[] mappedKeys = {UP, DOWN, LEFT, RIGHT};
   private final int[] revMappedKeys = {DOWN, UP, RIGHT, LEFT};
-  private final int foodSpawnWait = 750;
-  private final int foodDespawnWait = 7000;
-  private final int foodEffectWait = 6000;
   
-  private ArrayList<SnakeSpace> snake;
-  private ArrayList<SlimeSpace> slime;
-  private ArrayList<AFoodSpace> foods;
-  private ArrayList<TurnSpace> turns;
+  private final InputQueue turns = new InputQueue(16);
+  private final SimulationThread simulation;
+  private final Profiler profiler = new Profiler();
+  private BoardSnapshot snapshot;
   private GameState gameState;
   private int highScore;
-  
-  private boolean reverseMapping;
-  private int effectTimer;
-  private int spawnTimer;
-  private int despawnTimer;
-  private FoodType ate = FoodType.DEFAULT;
-  private SnakeView view = new SnakeView();
+  private int game;
+  private SnakeView view;
+  private AllocationCounter frameAllocs;
   
   /**
    * Constructs a model of the game snake and starts the program.
@@ -28,176 +25,102 @@ public class SnakeModel {
   public SnakeModel() {
     highScore = 1;
     gameState = GameState.START;
-  }
-  
-  /**
-   * Initializes/Resets the world back to its original state.
-   */
-  private void init() {
-    frameRate(SnakeView.defaultFrameRate);
-    reverseMapping = false;
-    spawnTimer = 0;
-    despawnTimer = 0;
-    effectTimer = 0;
-    gameState = GameState.PLAYING;
-    if (snake != null && snake.size() > highScore) {
-      highScore = snake.size();
-    }
-    slime = new ArrayList<SlimeSpace>();
-    snake = new ArrayList<SnakeSpace>();
-    SnakeSpace head = new SnakeSpace(1, 1);
-    head.setHead(true);
-    snake.add(head);
-    foods = new ArrayList<AFoodSpace>();
-    foods.add(new DefaultFoodSpace());
-    turns = new ArrayList<TurnSpace>();
-  }
-  
-  /**
-   * Draws and updates the model, based on the current game state.
-   */
-  public void update() {
-    view.display(gameState, snake, foods, slime, ate, highScore);
-    view.updateScreen(gameState, mouseX, mouseY);
-    if (gameState.equals(GameState.PLAYING)) {
-      isGameOver();
-      updatePlaying();
+    SnakeEngine engine = new SnakeEngine(BOARD_SIZE, System.nanoTime(), turns);
+    view = new SnakeView(engine.getBoard());
+    engine.setProfiler(profiler);
+    view.setProfiler(profiler);
+    simulation = new SimulationThread(engine, turns);
+    try {
+      File dir = new File(sketchPath("replays"));
+      dir.mkdirs();
+      pruneSessions(dir);
+      File file = new File(dir, "session-" + System.currentTimeMillis() + ".replay");
+      simulation.setRecorder(new ReplayRecorder(engine, new ReplayWriter(file, false, 1024)));
+    } catch (IOException e) {
+      println("Not recording: " + e.getMessage());
+    }
+    simulation.start();
+    new ProfileReporter(profiler, new File(sketchPath("profiles")), 1000, 1 << 20, 10).start();
+    snapshot = simulation.latest();
+    frameRate(DISPLAY_RATE);
+    try {
+      frameAllocs = new AllocationCounter();
+    } catch (IllegalStateException e) {
+      frameAllocs = null;
     }
   }
   
   /**
-   * Helper to the update() function. Updates and draws the current playing state.
+   * Helper to the constructor. Deletes the oldest session replays in the given
+   * directory, leaving room for this session's within the limit. Their names hold
+   * the time they were started, so sorting them by name puts them in order.
    */
-  private void updatePlaying() {
-    updateTimer();
-    ArrayList<TurnSpace> removeTurns = new ArrayList<TurnSpace>();
-    AFoodSpace eaten = null;
-    for (AFoodSpace f : foods) {
-      if (eaten == null && snake.get(0).samePosition(f)) {
-        eaten = f;
-      }
-    }
-    if (ate.equals(FoodType.SLIMER)) {
-      SnakeSpace last = snake.get(snake.size() - 1);
-      if (!last.direction.equals(Direction.STILL)) {
-        slime.add(new SlimeSpace(last.x, last.y));
-      }
-    }
-    for (SnakeSpace s : snake) {
-      for (TurnSpace t : turns) {
-        if (s.turn(t) && snake.indexOf(s) == snake.size() - 1) {
-          removeTurns.add(t);
-        }
+  private void pruneSessions(File dir) {
+    File[] existing = dir.listFiles();
+    if (existing == null) {
+      return;
+    }
+    Arrays.sort(existing);
+    ArrayList<File> sessions = new ArrayList<File>();
+    for (File file : existing) {
+      String name = file.getName();
+      if (name.startsWith("session-") && name.endsWith(".replay")) {
+        sessions.add(file);
       }
-      s.move(ate, BOARD_SIZE - 1, BOARD_SIZE - 1);
     }
-    eatFood(eaten);
-    for (TurnSpace t : removeTurns) {
-      turns.remove(t);
+    for (int i = 0; i < sessions.size() - (SESSION_REPLAYS - 1); i++) {
+      sessions.get(i).delete();
     }
   }
   
   /**
-   * Helper to the updatePlaying() function.
-   * Checks if the spawn timer is finished, and if so, spawns a new food on the board.
-   * Checks if the despawn timer is finished, and if so, despawns all special foods from the board.
-   * Checks if the effect timer is finished, and if so, removes the special effect from the snake and game.
-   * If not for any of the above, it starts the timer at the appropriate time.
+   * Initializes/Resets the world back to its original state.
    */
-  private void updateTimer() {
-    if (snake.size() >= 5) {
-      if (spawnTimer == 0) {
-        spawnTimer = millis();
-      } else if (millis() - spawnTimer >= foodSpawnWait) {
-        spawnTimer = 0;
-        if (randomFood() && foods.size() == 2) {
-          despawnTimer = millis();
-        }
-      }
-    }
-    if (millis() - despawnTimer >= foodDespawnWait) {
-      for (int i = 1; i < foods.size(); i++) {
-        foods.remove(i);
-      }
-      if (ate.equals(FoodType.EXPLODER)) {
-        ate = FoodType.DEFAULT;
-      }
-      despawnTimer = 0;
+  private void init() {
+    gameState = GameState.PLAYING;
+    if (snapshot.getScore() > highScore) {
+      highScore = snapshot.getScore();
     }
-    if (!ate.equals(FoodType.DEFAULT) && millis() - effectTimer >= foodEffectWait) {
-      ate = FoodType.DEFAULT;
-      effectTimer = 0;
-      reverseMapping = false;
-      frameRate(SnakeView.defaultFrameRate);
-      slime = new ArrayList<SlimeSpace>();
+    game = simulation.restart(System.nanoTime());
+    if (frameAllocs != null) {
+      frameAllocs.reset();
     }
   }
   
   /**
-   * Helper to the updateTimer() function. Randomly spawns a random type of food on the map.
-   *
-   * @return true if a food is spawned, false otherwise
+   * Draws the model, based on the current game state and the newest snapshot of
+   * the game. The game itself ticks on its own thread.
    */
-  private boolean randomFood() {
-    FoodType which = FoodType.values()[int(random(FoodType.values().length))];
-    if (which.willSpawn()) {
-      switch (which) {
-        case DECAPITATOR:
-          foods.add(new DecapitatorFoodSpace());
-          break;
-        case REVERSE:
-          foods.add(new ReverseFoodSpace());
-          break;
-        case EXPLODER:
-          foods.add(new ExploderFoodSpace());
-          break;
-        case STAR:
-          foods.add(new StarFoodSpace());
-          break;
-        case FAST:
-          foods.add(new FastFoodSpace());
-          break;
-        case SLOW:
-          foods.add(new SlowFoodSpace());
-          break;
-        case SLIMER:
-          foods.add(new SlimerFoodSpace());
-          break;
-        default:
-          break;
-      }
-      return true;
+  public void update() {
+    long lap = profiler.start();
+    boolean counting = frameAllocs != null && gameState.equals(GameState.PLAYING);
+    if (counting) {
+      frameAllocs.begin();
     }
-    return false;
-  }
-  
-  /**
-   * Helper to the updatePlaying() function.
-   * Handles eaten food effects and starts the effect timer.
-   * Restarts the despawn timer if over.
-   * Removes the eaten food from the foods list.
-   */
-  private void eatFood(AFoodSpace eaten) {
-    if (eaten != null) {
-      FoodType change = eaten.eatEffect(snake, foods, ate, BOARD_SIZE, BOARD_SIZE);
-      if (!change.equals(FoodType.DEFAULT)) {
-        ate = change;
-        effectTimer = millis();
-        if (ate.equals(FoodType.REVERSE)) {
-          reverseMapping = true;
-        } else if (ate.equals(FoodType.EXPLODER)) {
-          despawnTimer = millis();
-        }
-      }
-      foods.remove(eaten);
+    snapshot = simulation.latest();
+    view.display(gameState, snapshot, highScore);
+    view.updateScreen(gameState, mouseX, mouseY);
+    if (counting) {
+      frameAllocs.end();
+      profiler.gauge(Profiler.FRAME_BYTES, frameAllocs.getWorst());
+    }
+    profiler.lap(Profiler.FRAME, lap);
+    if (gameState.equals(GameState.PLAYING) && snapshot.getGame() == game && snapshot.isOver()) {
+      gameState = GameState.GAME_OVER;
     }
   }
   
   /**
-   * Handles keys pressed based on the current game state.
+   * Handles keys pressed based on the current game state. The P key turns the
+   * profiler and its overlay on and off, and the I key switches between drawing
+   * only the spaces that changed and drawing the whole board, in any state.
    */
   public void keyHandler() {
-    if (gameState.equals(GameState.PLAYING)) {
+    if (key == 'p' || key == 'P') {
+      profiler.setEnabled(!profiler.isEnabled());
+    } else if (key == 'i' || key == 'I') {
+      view.setIncremental(!view.isIncremental());
+    } else if (gameState.equals(GameState.PLAYING)) {
       keyHandlerPlaying();
     } else {
       keyHandlerScreen(); 
@@ -227,43 +150,35 @@ public class SnakeModel {
    * Helper to the keyHandler() function. Handles keys for the PLAYING game state.
    */
   private void keyHandlerPlaying() {
-    SnakeSpace head = snake.get(0);
     int[] keys = mappedKeys;
-    if (reverseMapping) {
+    if (snapshot.isReverseMapping()) {
      keys = revMappedKeys;
     }
     if (key == CODED) {
       if (keyCode == keys[0]) {
-          addNewTurn(new TurnSpace(head.x, head.y, Direction.DIR_UP));
+          addNewTurn(Direction.DIR_UP);
       } else if (keyCode == keys[1]) {
-          addNewTurn(new TurnSpace(head.x, head.y, Direction.DIR_DOWN));
+          addNewTurn(Direction.DIR_DOWN);
       } else if (keyCode == keys[2]) {
-          addNewTurn(new TurnSpace(head.x, head.y, Direction.DIR_LEFT));
+          addNewTurn(Direction.DIR_LEFT);
       } else if (keyCode == keys[3]) {
-          addNewTurn(new TurnSpace(head.x, head.y, Direction.DIR_RIGHT));
+          addNewTurn(Direction.DIR_RIGHT);
       }
     }
   }
   
   /**
-   * Helper to the keyHandlePlaying() method. Adds a new turn to the turns list,
-   * if not the same direction of the snake head or position of the last turn.
+   * Helper to the keyHandlePlaying() method. Queues the turn for the simulation,
+   * which checks it against the direction of the snake head when it is taken.
+   * Turns entered while the queue is full are dropped.
    *
-   * @throws IllegalArgumentException if the given {@code TurnSpace} is null
+   * @throws IllegalArgumentException if the given {@code Direction} is null
    */
-  private void addNewTurn(TurnSpace t) throws IllegalArgumentException {
-    if (t == null) {
+  private void addNewTurn(Direction dir) throws IllegalArgumentException {
+    if (dir == null) {
       throw new IllegalArgumentException("Can't add null.");
     }
-    if (!t.direction.equals(snake.get(0).direction)) {
-      if (turns.size() == 0) {
-        turns.add(t);
-      } else {
-        if (!turns.get(turns.size() - 1).samePosition(t)) {
-          turns.add(t);
-        }
-      }
-    }
+    turns.offer(dir);
   }
   
   /**
@@ -277,28 +192,4 @@ public class SnakeModel {
       }
     }
   }
-  
-  /**
-   * Decides whether the game is over or not.
-   *
-   * @return true if the game is over, false otherwise
-   */
-  private boolean isGameOver() {
-    boolean over = false;
-    for (int i = 1; i < snake.size(); i++) {
-      if (!over && snake.get(i).equals(snake.get(0))) {
-        over = true;
-      }
-    }
-    for (SlimeSpace s : slime) {
-      if (!over && snake.get(0).samePosition(s)) {
-        over = true;
-      }
-    }
-    if (over || snake.get(0).outOfBounds(BOARD_SIZE - 1, BOARD_SIZE - 1) || snake.size() == 0) {
-      gameState = GameState.GAME_OVER;
-      return true;
-    }
-    return false;
-  }
 }
\ No newline at end of file
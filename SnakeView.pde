@@ -1,14 +1,35 @@
 import java.util.Arrays;
 
 /**
- * Represents the view of the game.
+ * Represents the view of the game. The game being played is drawn onto a screen,
+ * which is the window unless another is given, and the menus onto the window.
  */
 public class SnakeView {
-  public static final int defaultFrameRate = 15;
+  private static final int PROFILE_LINE_LENGTH = 128;
+  
   private final color white = color(255);
   private final color ground = color(#2d0e05);
   private final color blue = color(#3a7cef);
   private final PFont pixeled = createFont("Pixeled.ttf", 20);
+  private final SnakeSpace segment = new SnakeSpace(0, 0);
+  private final SlimeSpace slimeSpace = new SlimeSpace(0, 0);
+  private final PGraphics screen;
+  private final PGraphics layer;
+  private final AFoodSpace[] foods = new AFoodSpace[FoodType.values().length];
+  private byte[] drawn;
+  private boolean incremental = true;
+  private GameState lastState;
+  private FoodType lastAte;
+  private final char[] scoreText = new char[20];
+  private int gameOverScore = -1;
+  private int gameOverHighScore = -1;
+  private Profiler profiler;
+  private ProfileWindow profileWindow;
+  private final StringBuilder profileLine = new StringBuilder(PROFILE_LINE_LENGTH);
+  private char[][] profileText;
+  private int[] profileLengths;
+  private int profileLines;
+  private long profileUpdated;
   
   private Screen start = new Screen("snake",
       new ArrayList<String>(),
@@ -26,44 +47,101 @@ public class SnakeView {
       new ArrayList<GameState>(Arrays.asList(GameState.PLAYING, GameState.START)));
   
   /**
-   * Constructs a {@code SnakeView} object.
+   * Constructs a {@code SnakeView} object that draws onto the window.
+   *
+   * @param board    the board to take one food of each type from, to draw foods with
+   * @throws IllegalArgumentException if the given {@code Board} is null
    */
-  public SnakeView() {
+  public SnakeView(Board board) throws IllegalArgumentException {
+    this(board, g);
     textFont(pixeled);
   }
   
+  /**
+   * Constructs a {@code SnakeView} object that draws the game onto the given screen.
+   *
+   * @param board     the board to take one food of each type from, to draw foods with
+   * @param screen    the graphics to draw the game onto
+   * @throws IllegalArgumentException if the given {@code Board} or {@code PGraphics} is null
+   */
+  public SnakeView(Board board, PGraphics screen) throws IllegalArgumentException {
+    if (board == null || screen == null) {
+      throw new IllegalArgumentException("Invalid board or screen.");
+    }
+    this.screen = screen;
+    this.layer = createGraphics(screen.width, screen.height);
+    for (FoodType t : FoodType.values()) {
+      foods[t.ordinal()] = board.newFood(t);
+    }
+    setProfiler(new Profiler());
+  }
+  
   /**
    * Displays the current game, depending on the game state.
    *
    * @param gs           the current state of the game
-   * @param snake        a list representing the snake
-   * @param foods        a list of all foods currently in game
-   * @param slime        a list of all slime blocks in the game
-   * @param ate          the type of food the snake last ate
+   * @param snapshot     the newest snapshot of the game
    * @param highScore    the current high score
    */
-  public void display(GameState gs, ArrayList<SnakeSpace> snake, ArrayList<AFoodSpace> foods,
-                      ArrayList<SlimeSpace> slime, FoodType ate, int highScore) {
-    background(ground);
+  public void display(GameState gs, BoardSnapshot snapshot, int highScore) {
+    long lap = profiler.start();
+    if (!incremental || !gs.equals(GameState.PLAYING)) {
+      screen.background(ground);
+    }
+    lap = profiler.lap(Profiler.BACKGROUND, lap);
     switch (gs) {
       case START:
-        frameRate(30);
         displayStart();
         break;
       case INSTRUCTIONS:
-        frameRate(30);
         displayInstructions();
         break;
       case PLAYING:
-        displayPlaying(snake, foods, slime, ate, highScore);
+        displayPlaying(snapshot, highScore);
         break;
       case GAME_OVER:
-        frameRate(30);
-        displayGameOver(snake, highScore);
+        displayGameOver(snapshot.getScore(), highScore);
         break;
       default:
         throw new IllegalStateException("State of game does not exist.");
     }
+    if (!gs.equals(GameState.PLAYING)) {
+      profiler.lap(Profiler.SCREEN, lap);
+    }
+    lastState = gs;
+  }
+  
+  /**
+   * Sets whether the board is drawn incrementally, keeping it in an off-screen
+   * layer and only redrawing the spaces that changed, or drawn in full every frame.
+   *
+   * @param incremental    true to only redraw changed spaces, false to redraw everything
+   */
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+    this.lastState = null;
+  }
+  
+  public boolean isIncremental() {
+    return this.incremental;
+  }
+  
+  /**
+   * Sets the profiler the drawing passes are timed with. While it is enabled, what
+   * it recorded is shown below the score.
+   *
+   * @param profiler    the profiler to record into and show
+   * @throws IllegalArgumentException if the given {@code Profiler} is null
+   */
+  public void setProfiler(Profiler profiler) throws IllegalArgumentException {
+    if (profiler == null) {
+      throw new IllegalArgumentException("Invalid profiler.");
+    }
+    this.profiler = profiler;
+    this.profileWindow = new ProfileWindow(profiler);
+    this.profileText = new char[profiler.phaseCount() + profiler.gaugeCount()][PROFILE_LINE_LENGTH];
+    this.profileLengths = new int[profileText.length];
+    this.profileLines = 0;
   }
   
   /**
@@ -80,50 +158,253 @@ public class SnakeView {
   /**
    * Displays the current playing state of the game.
    *
-   * @param snake        a list representing the snake
-   * @param foods        a list of all foods currently in game
-   * @param slime        a list of all slime blocks in the game
-   * @param ate          the type of food the snake last ate
+   * @param snapshot     the newest snapshot of the game
    * @param highScore    the current high score
    */
-  public void displayPlaying(ArrayList<SnakeSpace> snake, ArrayList<AFoodSpace> foods,
-                             ArrayList<SlimeSpace> slime, FoodType ate, int highScore) {
-    for (AFoodSpace f : foods) {
-      f.drawSpace();
+  public void displayPlaying(BoardSnapshot snapshot, int highScore) {
+    long lap = profiler.start();
+    if (incremental) {
+      updateLayer(snapshot);
+      lap = profiler.lap(Profiler.BOARD, lap);
+      screen.image(layer, 0, 0);
+      lap = profiler.lap(Profiler.BLIT, lap);
+    } else {
+      drawBoard(screen, snapshot);
+      lap = profiler.lap(Profiler.BOARD, lap);
     }
-    if (ate.equals(FoodType.SLIMER)) {
-      slime.add(new SlimeSpace(snake.get(snake.size() - 1).x, snake.get(snake.size() - 1).y));
+    screen.textAlign(RIGHT);
+    screen.fill(white);
+    if (snapshot.getScore() > highScore) {
+      screen.fill(blue);
     }
-    for (SlimeSpace sl : slime) {
-      sl.drawSpace();
+    setTextSize(20);
+    int scoreStart = formatLong(snapshot.getScore(), scoreText, scoreText.length);
+    screen.text(scoreText, scoreStart, scoreText.length, screen.width - 10, 40);
+    lap = profiler.lap(Profiler.SCORE, lap);
+    if (profiler.isEnabled()) {
+      displayProfile();
+      profiler.lap(Profiler.HUD, lap);
     }
-    for (SnakeSpace s : snake) {
-      s.drawSnake(ate);
+  }
+  
+  /**
+   * Helper to the displayPlaying() function. Draws the phases that ran and the
+   * gauges below the score, worked out again every half second so they can be read.
+   * The lines are written into arrays kept between frames, so drawing them doesn't
+   * allocate.
+   */
+  private void displayProfile() {
+    if (millis() - profileUpdated >= 500) {
+      profileUpdated = millis();
+      profileWindow.advance();
+      profileLines = 0;
+      for (int p = 0; p < profiler.phaseCount(); p++) {
+        long count = profileWindow.count(p);
+        if (count > 0) {
+          profileLine.setLength(0);
+          profileLine.append(profiler.phaseName(p)).append(" x").append(count).append(" mean ");
+          appendNanos(profileWindow.mean(p));
+          profileLine.append(" p99 ");
+          appendNanos(profileWindow.p99(p));
+          addProfileLine();
+        }
+      }
+      for (int i = 0; i < profiler.gaugeCount(); i++) {
+        profileLine.setLength(0);
+        profileLine.append(profiler.gaugeName(i)).append(' ').append(profiler.getGauge(i));
+        addProfileLine();
+      }
     }
-    textAlign(RIGHT);
-    fill(white);
-    if (snake.size() > highScore) {
-      fill(blue);
+    screen.textAlign(RIGHT);
+    screen.fill(white);
+    setTextSize(8);
+    for (int i = 0; i < profileLines; i++) {
+      screen.text(profileText[i], 0, profileLengths[i], screen.width - 10, 70 + 16 * i);
+    }
+  }
+  
+  /**
+   * Helper to the displayProfile() function. Copies the line being written into
+   * the next line to draw, only growing its array if the line doesn't fit.
+   */
+  private void addProfileLine() {
+    int length = profileLine.length();
+    if (profileText[profileLines].length < length) {
+      profileText[profileLines] = new char[length];
+    }
+    profileLine.getChars(0, length, profileText[profileLines], 0);
+    profileLengths[profileLines] = length;
+    profileLines++;
+  }
+  
+  /**
+   * Helper to the display functions. Writes the digits of the given number into
+   * the given array so that they end just before the given index, without
+   * making a string.
+   *
+   * @return the index of the first digit
+   */
+  private int formatLong(long value, char[] into, int end) {
+    long left = Math.abs(value);
+    int i = end;
+    do {
+      into[--i] = (char) ('0' + left % 10);
+      left /= 10;
+    } while (left > 0);
+    if (value < 0) {
+      into[--i] = '-';
+    }
+    return i;
+  }
+  
+  /**
+   * Helper to the display functions. Sets the font and text size of the screen,
+   * only where they differ, since setting them makes the renderer derive a new font.
+   */
+  private void setTextSize(float size) {
+    if (screen.textFont != pixeled) {
+      screen.textFont(pixeled);
+    }
+    if (screen.textSize != size) {
+      screen.textSize(size);
+    }
+  }
+  
+  /**
+   * Helper to the displayProfile() function. Writes the given time in the largest
+   * unit it is at least one of, to one decimal place.
+   */
+  private void appendNanos(long nanos) {
+    if (nanos >= 1000000) {
+      appendTenths(nanos / 100000);
+      profileLine.append("ms");
+    } else if (nanos >= 1000) {
+      appendTenths(nanos / 100);
+      profileLine.append("us");
+    } else {
+      profileLine.append(nanos).append("ns");
+    }
+  }
+  
+  /**
+   * Helper to the appendNanos() function. Writes the given number of tenths as a
+   * decimal.
+   */
+  private void appendTenths(long tenths) {
+    profileLine.append(tenths / 10).append('.').append(tenths % 10);
+  }
+  
+  /**
+   * Helper to the displayPlaying() function. Redraws the spaces of the board that
+   * changed since the last frame onto the off-screen layer, found by comparing the
+   * spaces the snapshot lists as changed with a copy of them as they were last drawn.
+   * Redraws the whole board instead when coming from another screen, when the
+   * snake's color changes or when the snapshot can't list what changed. The star
+   * spaces the snapshot lists are redrawn every frame, since their color changes
+   * every time they are drawn.
+   */
+  private void updateLayer(BoardSnapshot snapshot) {
+    FoodType ate = snapshot.getAte();
+    int cells = snapshot.getWidth() * snapshot.getHeight();
+    boolean full = !GameState.PLAYING.equals(lastState) || !ate.equals(lastAte)
+        || drawn == null || drawn.length != cells || snapshot.dirtyCount() < 0;
+    if (drawn == null || drawn.length != cells) {
+      drawn = new byte[cells];
+    }
+    layer.beginDraw();
+    if (full) {
+      layer.background(ground);
+      for (int i = 0; i < cells; i++) {
+        int state = snapshot.cell(i);
+        if (state != 0) {
+          drawCell(layer, snapshot, i, false);
+        }
+        drawn[i] = (byte) state;
+      }
+    } else {
+      for (int d = 0; d < snapshot.dirtyCount(); d++) {
+        redrawCell(snapshot, snapshot.getDirty(d), false);
+      }
+      for (int d = 0; d < snapshot.starCount(); d++) {
+        redrawCell(snapshot, snapshot.getStarCell(d), true);
+      }
+    }
+    layer.endDraw();
+    lastAte = ate;
+  }
+  
+  /**
+   * Helper to the updateLayer() function. Redraws the space at the given index on
+   * the layer if it changed since it was last drawn, or if told to anyway.
+   */
+  private void redrawCell(BoardSnapshot snapshot, int cell, boolean always) {
+    int state = snapshot.cell(cell);
+    if (always || state != (drawn[cell] & 0xFF)) {
+      drawCell(layer, snapshot, cell, true);
+      drawn[cell] = (byte) state;
+    }
+  }
+  
+  /**
+   * Helper to the updateLayer() and drawBoard() functions. Draws a single space of
+   * the board, with the food below the slime and the slime below the snake.
+   *
+   * @param clear    true to paint over the space with the ground first, false otherwise
+   */
+  private void drawCell(PGraphics pg, BoardSnapshot snapshot, int cell, boolean clear) {
+    int x = cell % snapshot.getWidth();
+    int y = cell / snapshot.getWidth();
+    if (clear) {
+      pg.noStroke();
+      pg.fill(ground);
+      pg.rect(x * spaceSize, y * spaceSize, spaceSize, spaceSize);
+    }
+    FoodType type = snapshot.foodType(cell);
+    if (type != null) {
+      foods[type.ordinal()].moveTo(x, y);
+      foods[type.ordinal()].drawSpace(pg);
+    }
+    if (snapshot.has(cell, Board.SLIME)) {
+      slimeSpace.moveTo(x, y);
+      slimeSpace.drawSpace(pg);
+    }
+    if (snapshot.has(cell, Board.SNAKE)) {
+      segment.moveTo(x, y);
+      segment.setHead(snapshot.has(cell, Board.HEAD));
+      segment.drawSnake(pg, snapshot.getAte());
+    }
+  }
+  
+  /**
+   * Draws every food, slime and snake space onto the given graphics.
+   */
+  private void drawBoard(PGraphics pg, BoardSnapshot snapshot) {
+    int cells = snapshot.getWidth() * snapshot.getHeight();
+    for (int i = 0; i < cells; i++) {
+      if (snapshot.cell(i) != 0) {
+        drawCell(pg, snapshot, i, false);
+      }
     }
-    textSize(20);
-    text(snake.size(), width - 10, 40);
   }
   
   /**
    * Displays the game over screen of the game.
    *
-   * @param snake        a list representing the snake
+   * @param score        the final score of the game
    * @param highScore    the current high score
    */
-  public void displayGameOver(ArrayList<SnakeSpace> snake, int highScore) {
-    String highscoreText;
-    if (snake.size() > highScore) {
-      highscoreText = "NEW HIGH SCORE: " + snake.size();
-    } else {
-      highscoreText = "high score: " + highScore;
+  public void displayGameOver(int score, int highScore) {
+    if (score != gameOverScore || highScore != gameOverHighScore) {
+      gameOverScore = score;
+      gameOverHighScore = highScore;
+      String highscoreText;
+      if (score > highScore) {
+        highscoreText = "NEW HIGH SCORE: " + score;
+      } else {
+        highscoreText = "high score: " + highScore;
+      }
+      gameOver.setBody(new ArrayList<String>(Arrays.asList(highscoreText, "score: " + score)));
     }
-    
-    gameOver.setBody(new ArrayList<String>(Arrays.asList(highscoreText, "score: " + snake.size())));
     gameOver.display();
   }
   
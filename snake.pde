@@ -13,19 +13,113 @@ public int spaceSize;
 public SnakeModel model;
 
 /**
- * Sets up the program.
+ * Sets the size of the window, or runs one of the tools and exits if any
+ * arguments were passed, before a window is ever made. The alloc tool draws, so
+ * it is run from setup() once the renderer has been made instead.
  */
-void setup() {
+void settings() {
+  if (args != null && args.length > 0 && !args[0].equals("alloc")) {
+    runHeadless(args);
+    System.exit(0);
+  }
   size(1000, 1000);
+}
+
+/**
+ * Sets up the program, or runs the alloc tool and exits if it was asked for.
+ */
+void setup() {
+  if (args != null && args.length > 0) {
+    runAllocationCheck(args);
+    System.exit(0);
+  }
   spaceSize = width / BOARD_SIZE;
   model = new SnakeModel();
 }
 
+/**
+ * Runs the tools that don't need the game window without launching the sketch,
+ * since launching it asks for a display even when no window is ever shown. The
+ * alloc tool needs the renderer, so it can only be run through the sketch.
+ */
+public static class Headless {
+  public static void main(String[] args) {
+    if (args.length == 0 || args[0].equals("alloc")) {
+      println("Usage: snake$Headless batch|bench|record|replay|arena [arguments]");
+      System.exit(1);
+    }
+    new snake().runHeadless(args);
+    System.exit(0);
+  }
+}
+
+/**
+ * Runs one of the tools that don't need the game window, chosen by the first
+ * argument passed to the sketch.
+ *
+ * @param args    the arguments passed to the sketch
+ */
+void runHeadless(String[] args) {
+  if (args[0].equals("batch")) {
+    int games = (args.length > 1) ? parseInt(args[1]) : 10000;
+    BatchRunner runner = new BatchRunner(BOARD_SIZE, 20000);
+    println(runner.run(1, games));
+    runner.shutdown();
+  } else if (args[0].equals("bench")) {
+    new SnakeBenchmark().runAll((args.length > 1) ? args[1] : "");
+  } else if (args[0].equals("record")) {
+    int games = (args.length > 1) ? parseInt(args[1]) : 1000;
+    File file = new File((args.length > 2) ? args[2] : sketchPath("replays/bots.replay"));
+    file.getAbsoluteFile().getParentFile().mkdirs();
+    try {
+      println(new ReplayArchive(file).record(1, games, BOARD_SIZE, 20000, 1024));
+    } catch (IOException e) {
+      println("Couldn't record: " + e.getMessage());
+    }
+  } else if (args[0].equals("replay")) {
+    File file = new File((args.length > 1) ? args[1] : sketchPath("replays/bots.replay"));
+    try {
+      println(new ReplayArchive(file).verify());
+    } catch (IOException e) {
+      println("Couldn't replay: " + e.getMessage());
+    }
+  } else if (args[0].equals("arena")) {
+    int snakes = (args.length > 1) ? parseInt(args[1]) : 500;
+    int size = (args.length > 2) ? parseInt(args[2]) : 1024;
+    int ticks = (args.length > 3) ? parseInt(args[3]) : 2000;
+    new ArenaBenchmark(size, snakes, ticks / 4, ticks).runAll();
+  } else {
+    println("Unknown mode: " + args[0]);
+  }
+}
+
+/**
+ * Runs the alloc tool, which plays games with a bot and draws every frame onto
+ * an off-screen graphics, so it needs the renderer made after settings().
+ * Exits with a status of 1 if any frame allocated more than the budget.
+ *
+ * @param args    the arguments passed to the sketch, starting with "alloc"
+ */
+void runAllocationCheck(String[] args) {
+  int games = (args.length > 1) ? parseInt(args[1]) : 100;
+  long budget = (args.length > 2) ? parseInt(args[2]) : 0;
+  try {
+    AllocationCounter counter = new AllocationCheck(BOARD_SIZE, 20000, budget).run(1, games);
+    println("Within " + budget + " bytes over " + games + " games, worst frame "
+        + counter.getWorst() + " bytes.");
+  } catch (IllegalStateException e) {
+    println(e.getMessage());
+    System.exit(1);
+  }
+}
+
 /**
  * Draws the current state of the game.
  */
 void draw() {
-  model.update();
+  if (model != null) {
+    model.update();
+  }
 }
 
 /**